@@ -0,0 +1,37 @@
+package es.juanjsts.cluster.models;
+
+import java.util.UUID;
+
+// Clave invalidada en una región de cache de otro nodo. La clave viaja como texto con su tipo para que,
+// tras pasar por JSON, vuelva a ser igual a la clave de la cache (un Long no debe llegar como Integer)
+public record CacheInvalidation(String region, Tipo tipo, String key) {
+    public enum Tipo {LONG, STRING, UUID, ALL, GENERATION}
+
+    // Las claves de otros tipos no se pueden reconstruir, así que se vacía la región entera
+    public static CacheInvalidation evict(String region, Object key) {
+        return switch (key) {
+            case Long id -> new CacheInvalidation(region, Tipo.LONG, id.toString());
+            case Integer id -> new CacheInvalidation(region, Tipo.LONG, id.toString());
+            case String texto -> new CacheInvalidation(region, Tipo.STRING, texto);
+            case UUID uuid -> new CacheInvalidation(region, Tipo.UUID, uuid.toString());
+            case null, default -> clear(region);
+        };
+    }
+
+    public static CacheInvalidation clear(String region) {
+        return new CacheInvalidation(region, Tipo.ALL, null);
+    }
+
+    public static CacheInvalidation generation(String entity) {
+        return new CacheInvalidation(entity, Tipo.GENERATION, null);
+    }
+
+    public Object decodedKey() {
+        return switch (tipo) {
+            case LONG -> Long.valueOf(key);
+            case UUID -> java.util.UUID.fromString(key);
+            case STRING -> key;
+            case ALL, GENERATION -> null;
+        };
+    }
+}
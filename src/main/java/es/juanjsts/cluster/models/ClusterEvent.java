@@ -0,0 +1,19 @@
+package es.juanjsts.cluster.models;
+
+import es.juanjsts.websockets.notifications.models.Notificacion;
+import es.juanjsts.websockets.notifications.models.NotificationPayload;
+import es.juanjsts.websockets.notifications.models.NotificationTopic;
+
+import java.util.List;
+
+// Cambio de una entidad reenviado entre nodos; el id (nodo + contador) sirve para descartar duplicados.
+// Lleva una notificación con la clase de su payload o, para las caches, la lista de claves invalidadas
+public record ClusterEvent(
+        String id,
+        String nodeId,
+        String key,
+        Notificacion<Object> notificacion,
+        NotificationPayload payload,
+        NotificationTopic topic,
+        List<CacheInvalidation> invalidaciones
+) {}
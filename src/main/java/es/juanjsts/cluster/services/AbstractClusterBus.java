@@ -0,0 +1,141 @@
+package es.juanjsts.cluster.services;
+
+import es.juanjsts.cluster.models.CacheInvalidation;
+import es.juanjsts.cluster.models.ClusterEvent;
+import es.juanjsts.websockets.notifications.models.Notificacion;
+import es.juanjsts.websockets.notifications.models.NotificationPayload;
+import es.juanjsts.websockets.notifications.models.NotificationTopic;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Parte común de los transportes: agrupa los eventos salientes en lotes y descarta los entrantes repetidos
+@Slf4j
+public abstract class AbstractClusterBus implements ClusterBus, DisposableBean {
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicLong eventos = new AtomicLong();
+    private final List<Consumer<ClusterEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final long batchWindowMs;
+    private final int batchMaxEvents;
+
+    private final List<ClusterEvent> salientes = new ArrayList<>();
+    private final Map<String, Boolean> vistos;
+    private final ScheduledExecutorService scheduler;
+
+    protected AbstractClusterBus(long batchWindowMs, int batchMaxEvents, int dedupCapacity) {
+        this.batchWindowMs = batchWindowMs;
+        this.batchMaxEvents = batchMaxEvents;
+        // Ids recientes, los más antiguos se olvidan al superar la capacidad
+        this.vistos = new LinkedHashMap<>(dedupCapacity, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > dedupCapacity;
+            }
+        };
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("cluster-lotes").factory());
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void publish(String key, Notificacion<?> notificacion, NotificationTopic topic) {
+        encolar(new ClusterEvent(nextId(), nodeId, key, (Notificacion<Object>) notificacion,
+                NotificationPayload.of(notificacion), topic, null));
+    }
+
+    @Override
+    public void publishInvalidations(List<CacheInvalidation> invalidaciones) {
+        encolar(new ClusterEvent(nextId(), nodeId, "CACHE", null, null, null, List.copyOf(invalidaciones)));
+    }
+
+    private String nextId() {
+        return nodeId + ":" + eventos.incrementAndGet();
+    }
+
+    private void encolar(ClusterEvent event) {
+        List<ClusterEvent> lote = null;
+        synchronized (salientes) {
+            salientes.add(event);
+            if (salientes.size() >= batchMaxEvents) {
+                lote = new ArrayList<>(salientes);
+                salientes.clear();
+            } else if (salientes.size() == 1) {
+                scheduler.schedule(this::flush, batchWindowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (lote != null) {
+            enviar(lote);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<ClusterEvent> listener) {
+        listeners.add(listener);
+    }
+
+    void flush() {
+        List<ClusterEvent> lote;
+        synchronized (salientes) {
+            if (salientes.isEmpty()) {
+                return;
+            }
+            lote = new ArrayList<>(salientes);
+            salientes.clear();
+        }
+        enviar(lote);
+    }
+
+    private void enviar(List<ClusterEvent> lote) {
+        try {
+            transmit(lote);
+        } catch (IOException e) {
+            log.warn("Error al reenviar {} eventos al cluster: {}", lote.size(), e.getMessage());
+        }
+    }
+
+    // Entrega a los listeners los eventos de otros nodos que no se hayan recibido antes
+    protected void deliver(List<ClusterEvent> lote) {
+        for (ClusterEvent event : lote) {
+            if (nodeId.equals(event.nodeId()) || !primeraVez(event.id())) {
+                continue;
+            }
+            for (Consumer<ClusterEvent> listener : listeners) {
+                try {
+                    listener.accept(event);
+                } catch (RuntimeException e) {
+                    log.error("Error al procesar el evento {} del cluster", event.id(), e);
+                }
+            }
+        }
+    }
+
+    private boolean primeraVez(String eventId) {
+        synchronized (vistos) {
+            return vistos.put(eventId, Boolean.TRUE) == null;
+        }
+    }
+
+    protected abstract void transmit(List<ClusterEvent> lote) throws IOException;
+
+    @Override
+    public void destroy() throws Exception {
+        scheduler.shutdownNow();
+        flush();
+    }
+}
@@ -0,0 +1,21 @@
+package es.juanjsts.cluster.services;
+
+import es.juanjsts.cluster.models.CacheInvalidation;
+import es.juanjsts.cluster.models.ClusterEvent;
+import es.juanjsts.websockets.notifications.models.Notificacion;
+import es.juanjsts.websockets.notifications.models.NotificationTopic;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface ClusterBus {
+    String getNodeId();
+
+    // Envía el cambio al resto de nodos; el nodo que publica no lo recibe
+    void publish(String key, Notificacion<?> notificacion, NotificationTopic topic);
+
+    // Claves de cache invalidadas en este nodo, para que el resto descarte sus copias
+    void publishInvalidations(List<CacheInvalidation> invalidaciones);
+
+    void subscribe(Consumer<ClusterEvent> listener);
+}
@@ -0,0 +1,32 @@
+package es.juanjsts.cluster.services;
+
+import es.juanjsts.cluster.models.ClusterEvent;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+// Transporte dentro de la misma JVM: los nodos son los buses creados en el proceso (un solo nodo por defecto)
+public final class InProcessClusterBus extends AbstractClusterBus {
+    private static final Set<InProcessClusterBus> NODOS = new CopyOnWriteArraySet<>();
+
+    public InProcessClusterBus(long batchWindowMs, int batchMaxEvents, int dedupCapacity) {
+        super(batchWindowMs, batchMaxEvents, dedupCapacity);
+        NODOS.add(this);
+    }
+
+    @Override
+    protected void transmit(List<ClusterEvent> lote) {
+        for (InProcessClusterBus nodo : NODOS) {
+            if (nodo != this) {
+                nodo.deliver(lote);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        super.destroy();
+        NODOS.remove(this);
+    }
+}
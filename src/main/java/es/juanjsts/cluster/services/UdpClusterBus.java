@@ -0,0 +1,87 @@
+package es.juanjsts.cluster.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.juanjsts.cluster.models.ClusterEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.StandardSocketOptions;
+import java.util.List;
+
+// Transporte UDP: con una dirección multicast todos los nodos del grupo reciben cada lote;
+// con una dirección unicast (p. ej. loopback en tests) el lote se manda a cada peer configurado
+@Slf4j
+public final class UdpClusterBus extends AbstractClusterBus {
+    // Tamaño máximo de un datagrama con margen para las cabeceras
+    private static final int MAX_DATAGRAM = 60 * 1024;
+    private static final TypeReference<List<ClusterEvent>> LOTE = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper;
+    private final DatagramSocket socket;
+    private final List<InetSocketAddress> destinos;
+    private final Thread receptor;
+
+    public UdpClusterBus(ObjectMapper objectMapper, InetAddress address, int port, List<InetSocketAddress> peers,
+                         NetworkInterface networkInterface, long batchWindowMs, int batchMaxEvents, int dedupCapacity) throws IOException {
+        super(batchWindowMs, batchMaxEvents, dedupCapacity);
+        this.objectMapper = objectMapper;
+        if (address.isMulticastAddress()) {
+            MulticastSocket multicast = new MulticastSocket(port);
+            multicast.setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true);
+            multicast.setOption(StandardSocketOptions.IP_MULTICAST_IF, networkInterface);
+            multicast.joinGroup(new InetSocketAddress(address, port), networkInterface);
+            this.socket = multicast;
+            this.destinos = List.of(new InetSocketAddress(address, port));
+        } else {
+            this.socket = new DatagramSocket(new InetSocketAddress(address, port));
+            this.destinos = List.copyOf(peers);
+        }
+        log.info("Bus de cluster UDP en {}:{} (nodo {}), destinos: {}", address.getHostAddress(), port, getNodeId(), destinos);
+        this.receptor = Thread.ofVirtual().name("cluster-udp").start(this::recibir);
+    }
+
+    @Override
+    protected void transmit(List<ClusterEvent> lote) throws IOException {
+        byte[] payload = objectMapper.writeValueAsBytes(lote);
+        // Un lote que no cabe en un datagrama se parte en dos
+        if (payload.length > MAX_DATAGRAM && lote.size() > 1) {
+            int mitad = lote.size() / 2;
+            transmit(lote.subList(0, mitad));
+            transmit(lote.subList(mitad, lote.size()));
+            return;
+        }
+        for (InetSocketAddress destino : destinos) {
+            socket.send(new DatagramPacket(payload, payload.length, destino));
+        }
+    }
+
+    private void recibir() {
+        byte[] buffer = new byte[64 * 1024];
+        while (!socket.isClosed()) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+                deliver(objectMapper.readValue(packet.getData(), packet.getOffset(), packet.getLength(), LOTE));
+            } catch (SocketException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("Lote del cluster no válido desde {}: {}", packet.getSocketAddress(), e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        super.destroy();
+        socket.close();
+        receptor.interrupt();
+    }
+}
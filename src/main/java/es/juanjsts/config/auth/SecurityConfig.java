@@ -44,7 +44,7 @@ public class SecurityConfig {
     @Bean
     @Order(1)
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
-        String[] apiPaths = {"/api/**", "/error/**", "/ws/**", "/graphql","/graphiql","/graphiql/**"};
+        String[] apiPaths = {"/api/**", "/error/**", "/ws/**", "/graphql","/graphiql","/graphiql/**", "/actuator/**"};
         http
                 .securityMatcher(apiPaths)
                 .csrf(AbstractHttpConfigurer::disable)
@@ -60,6 +60,8 @@ public class SecurityConfig {
                         .requestMatchers("/ws/**").permitAll()
                         .requestMatchers("/api/" + apiVersion +"/**").permitAll()
                         .requestMatchers("/graphql", "/graphiql", "/graphiql/**").permitAll()
+                        // Health y métricas para el scraper de Prometheus
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                         .anyRequest().authenticated())
                 .authenticationProvider(authenticationProvider()).addFilterBefore(
                   jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
@@ -0,0 +1,108 @@
+package es.juanjsts.config.cache;
+
+import es.juanjsts.rest.plataformas.models.Plataforma;
+import es.juanjsts.rest.plataformas.services.PlataformaService;
+import es.juanjsts.rest.videojuegos.services.VideojuegosService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Precarga las caches antes de que la aplicación se declare lista (los ApplicationRunner terminan antes del
+// ApplicationReadyEvent): plataformas, las primeras páginas del listado por defecto y los videojuegos más pedidos
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cache.warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class CacheWarmup implements ApplicationRunner {
+    private final PlataformaService plataformaService;
+    private final VideojuegosService videojuegosService;
+    private final HotKeyTracker hotKeyTracker;
+    private final Timer timer;
+    private final int threads;
+    private final int listingPages;
+    private final int pageSize;
+    private final List<Long> videojuegoIds;
+    private final long timeoutMs;
+
+    public CacheWarmup(
+            PlataformaService plataformaService,
+            VideojuegosService videojuegosService,
+            HotKeyTracker hotKeyTracker,
+            MeterRegistry meterRegistry,
+            @Value("${cache.warmup.threads:4}") int threads,
+            @Value("${cache.warmup.listing-pages:3}") int listingPages,
+            @Value("${cache.warmup.page-size:10}") int pageSize,
+            @Value("${cache.warmup.videojuego-ids:}") List<Long> videojuegoIds,
+            @Value("${cache.warmup.timeout-ms:30000}") long timeoutMs) {
+        this.plataformaService = plataformaService;
+        this.videojuegosService = videojuegosService;
+        this.hotKeyTracker = hotKeyTracker;
+        this.timer = Timer.builder("cache.warmup")
+                .description("Duración del calentamiento de caches en el arranque")
+                .register(meterRegistry);
+        this.threads = threads;
+        this.listingPages = listingPages;
+        this.pageSize = pageSize;
+        this.videojuegoIds = videojuegoIds;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        long inicio = System.nanoTime();
+        List<Callable<Object>> tareas = tareas();
+        int fallos = 0;
+        // Hilos virtuales, pero limitados para no agotar el pool de conexiones
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads, Thread.ofVirtual().name("cache-warmup-", 0).factory())) {
+            for (Future<Object> tarea : executor.invokeAll(tareas, timeoutMs, TimeUnit.MILLISECONDS)) {
+                if (tarea.state() == Future.State.FAILED) {
+                    log.warn("Carga fallida durante el calentamiento de caches: {}", tarea.exceptionNow().getMessage());
+                }
+                if (tarea.state() != Future.State.SUCCESS) {
+                    fallos++;
+                }
+            }
+        }
+        long duracion = System.nanoTime() - inicio;
+        timer.record(duracion, TimeUnit.NANOSECONDS);
+        log.info("Caches calentadas en {} ms: {} cargas, {} fallidas", TimeUnit.NANOSECONDS.toMillis(duracion), tareas.size(), fallos);
+    }
+
+    List<Callable<Object>> tareas() {
+        List<Callable<Object>> tareas = new ArrayList<>();
+        for (Plataforma plataforma : plataformaService.findAll(Optional.empty(), Optional.of(false), Pageable.unpaged())) {
+            tareas.add(() -> plataformaService.findById(plataforma.getId()));
+            tareas.add(() -> plataformaService.findByNombre(plataforma.getNombre()));
+        }
+        // Mismo Pageable que usa el controlador sin parámetros, para que coincida la clave del listado
+        for (int page = 0; page < listingPages; page++) {
+            Pageable pageable = PageRequest.of(page, pageSize, Sort.by("id").ascending());
+            tareas.add(() -> videojuegosService.findAll(Optional.empty(), Optional.empty(), Optional.empty(), pageable));
+        }
+        // Los más pedidos del arranque anterior y, si no hay fichero, los configurados
+        Set<Long> ids = new LinkedHashSet<>(hotKeyTracker.persisted(HotKeyTracker.VIDEOJUEGOS));
+        if (ids.isEmpty()) {
+            ids.addAll(videojuegoIds);
+        }
+        ids.forEach(id -> tareas.add(() -> videojuegosService.findById(id)));
+        return tareas;
+    }
+}
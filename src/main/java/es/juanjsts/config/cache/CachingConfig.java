@@ -0,0 +1,87 @@
+package es.juanjsts.config.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Page;
+
+import java.util.Collection;
+import java.util.Map;
+
+// Caches acotadas con Caffeine: cada cache tiene su propia política (tamaño o peso, TTL/TTI) en cache.specs.<nombre>,
+// las que no estén configuradas usan cache.default-spec
+@Slf4j
+@Configuration
+public class CachingConfig {
+    @Value("${cache.default-spec:maximumSize=1000,expireAfterWrite=10m,recordStats}")
+    private String defaultSpec;
+
+    @Bean
+    public CaffeineCacheManager cacheManager(Environment environment, ClusterCacheInvalidator invalidator) {
+        // Caches en modo stale-while-revalidate: cache.stale-while-revalidate.<nombre>.fresh/grace/max-stale
+        Map<String, StaleWhileRevalidateCache.Policy> swrPolicies = Binder.get(environment)
+                .bind("cache.stale-while-revalidate", Bindable.mapOf(String.class, StaleWhileRevalidateCache.Policy.class))
+                .orElse(Map.of());
+        swrPolicies.forEach((name, policy) -> log.info("Cache {} en modo stale-while-revalidate: {}", name, policy));
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                StaleWhileRevalidateCache.Policy policy = swrPolicies.get(name);
+                SingleFlightCaffeineCache adaptada = policy != null
+                        ? new StaleWhileRevalidateCache(name, cache, isAllowNullValues(), invalidator, policy)
+                        : new SingleFlightCaffeineCache(name, cache, isAllowNullValues(), invalidator);
+                // Se registra ya construida para que el invalidador no vea la cache a medio inicializar
+                invalidator.register(adaptada);
+                return adaptada;
+            }
+        };
+        cacheManager.setCacheSpecification(defaultSpec);
+
+        Map<String, String> specs = Binder.get(environment)
+                .bind("cache.specs", Bindable.mapOf(String.class, String.class))
+                .orElse(Map.of());
+        specs.forEach((name, spec) -> {
+            log.info("Cache {} con política: {}", name, spec);
+            cacheManager.registerCustomCache(name, builder(spec).build());
+        });
+        return cacheManager;
+    }
+
+    // Listados de videojuegos: se invalidan al cambiar la generación de videojuegos o de plataformas,
+    // las mismas que forman su ETag
+    @Bean
+    public KeyGenerator videojuegosListadoKeyGenerator(EntityGenerations entityGenerations) {
+        return new GenerationKeyGenerator(entityGenerations, EntityGenerations.VIDEOJUEGOS, EntityGenerations.PLATAFORMAS);
+    }
+
+    private Caffeine<Object, Object> builder(String spec) {
+        Caffeine<Object, Object> builder = Caffeine.from(CaffeineSpec.parse(spec));
+        // maximumWeight necesita un weigher: las páginas y colecciones pesan lo que sus elementos
+        if (spec.contains("maximumWeight")) {
+            builder.weigher((Object key, Object value) -> weight(value));
+        }
+        return builder;
+    }
+
+    static int weight(Object value) {
+        if (value instanceof StaleWhileRevalidateCache.Sello sello) {
+            return weight(sello.valor());
+        }
+        if (value instanceof Page<?> page) {
+            return Math.max(1, page.getNumberOfElements());
+        }
+        if (value instanceof Collection<?> collection) {
+            return Math.max(1, collection.size());
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,149 @@
+package es.juanjsts.config.cache;
+
+import es.juanjsts.cluster.models.CacheInvalidation;
+import es.juanjsts.cluster.models.ClusterEvent;
+import es.juanjsts.cluster.services.ClusterBus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Reenvía al resto de nodos las claves escritas o borradas en las caches de este nodo y aplica las que llegan.
+// Las claves se agrupan durante una ventana corta y las repetidas se envían una sola vez; dentro de una
+// transacción se envían tras el commit para que los otros nodos no recarguen el valor anterior
+@Slf4j
+@Component
+public class ClusterCacheInvalidator implements InitializingBean, DisposableBean {
+    private final ClusterBus clusterBus;
+    private final boolean enabled;
+    private final long windowMs;
+
+    private final Map<String, SingleFlightCaffeineCache> caches = new ConcurrentHashMap<>();
+    private final List<Consumer<String>> generationListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<CacheInvalidation>> invalidationListeners = new CopyOnWriteArrayList<>();
+    private final Set<CacheInvalidation> pendientes = new LinkedHashSet<>();
+
+    private ScheduledExecutorService scheduler;
+
+    public ClusterCacheInvalidator(
+            ClusterBus clusterBus,
+            @Value("${cache.invalidation.enabled:true}") boolean enabled,
+            @Value("${cache.invalidation.window-ms:10}") long windowMs) {
+        this.clusterBus = clusterBus;
+        this.enabled = enabled;
+        this.windowMs = windowMs;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("cache-invalidaciones").factory());
+        clusterBus.subscribe(this::onClusterEvent);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        flush();
+    }
+
+    void register(SingleFlightCaffeineCache cache) {
+        caches.put(cache.getName(), cache);
+    }
+
+    // Recibe la entidad de cada incremento de generación llegado de otro nodo
+    public void onGeneration(Consumer<String> listener) {
+        generationListeners.add(listener);
+    }
+
+    // Recibe cada clave o región invalidada por otro nodo, haya o no una cache local con ese nombre
+    public void onInvalidation(Consumer<CacheInvalidation> listener) {
+        invalidationListeners.add(listener);
+    }
+
+    void evicted(String region, Object key) {
+        publish(CacheInvalidation.evict(region, key));
+    }
+
+    void cleared(String region) {
+        publish(CacheInvalidation.clear(region));
+    }
+
+    void generationBumped(String entity) {
+        publish(CacheInvalidation.generation(entity));
+    }
+
+    private void publish(CacheInvalidation invalidation) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    encolar(invalidation);
+                }
+            });
+        } else {
+            encolar(invalidation);
+        }
+    }
+
+    private void encolar(CacheInvalidation invalidation) {
+        synchronized (pendientes) {
+            if (pendientes.add(invalidation) && pendientes.size() == 1) {
+                scheduler.schedule(this::flush, windowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    void flush() {
+        List<CacheInvalidation> lote;
+        synchronized (pendientes) {
+            if (pendientes.isEmpty()) {
+                return;
+            }
+            lote = new ArrayList<>(pendientes);
+            pendientes.clear();
+        }
+        clusterBus.publishInvalidations(lote);
+    }
+
+    // Se aplica solo en local: lo que llega de otro nodo no se vuelve a publicar
+    void onClusterEvent(ClusterEvent event) {
+        if (event.invalidaciones() == null) {
+            return;
+        }
+        log.debug("{} invalidaciones de cache recibidas del nodo {}", event.invalidaciones().size(), event.nodeId());
+        for (CacheInvalidation invalidation : event.invalidaciones()) {
+            if (invalidation.tipo() == CacheInvalidation.Tipo.GENERATION) {
+                generationListeners.forEach(listener -> listener.accept(invalidation.region()));
+                continue;
+            }
+            invalidationListeners.forEach(listener -> listener.accept(invalidation));
+            SingleFlightCaffeineCache cache = caches.get(invalidation.region());
+            if (cache == null) {
+                continue;
+            }
+            if (invalidation.tipo() == CacheInvalidation.Tipo.ALL) {
+                cache.clearLocal();
+            } else {
+                cache.evictLocal(invalidation.decodedKey());
+            }
+        }
+    }
+}
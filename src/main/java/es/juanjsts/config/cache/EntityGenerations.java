@@ -0,0 +1,49 @@
+package es.juanjsts.config.cache;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Generación por entidad: forma parte de la clave de los listados cacheados, así que al incrementarla
+// todos los listados anteriores dejan de usarse sin recorrer la cache (expiran por TTL o tamaño)
+@Component
+public class EntityGenerations {
+    public static final String VIDEOJUEGOS = "videojuegos";
+    public static final String PLATAFORMAS = "plataformas";
+
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final ClusterCacheInvalidator invalidator;
+
+    // Los incrementos de otros nodos llegan por el invalidador y solo se aplican aquí
+    public EntityGenerations(ClusterCacheInvalidator invalidator) {
+        this.invalidator = invalidator;
+        invalidator.onGeneration(this::increment);
+    }
+
+    public long current(String entity) {
+        return generations.computeIfAbsent(entity, k -> new AtomicLong()).get();
+    }
+
+    // Dentro de una transacción se incrementa tras el commit, para que nadie cachee datos sin confirmar con la nueva generación
+    public void bump(String entity) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment(entity);
+                }
+            });
+        } else {
+            increment(entity);
+        }
+        invalidator.generationBumped(entity);
+    }
+
+    private void increment(String entity) {
+        generations.computeIfAbsent(entity, k -> new AtomicLong()).incrementAndGet();
+    }
+}
@@ -0,0 +1,53 @@
+package es.juanjsts.config.cache;
+
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.data.domain.Pageable;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+// Clave de un listado: generación actual de cada entidad que aparece en él más los filtros normalizados
+// y la página pedida. Un listado de videojuegos también depende de las plataformas (nombre y filtro)
+public class GenerationKeyGenerator implements KeyGenerator {
+    private final EntityGenerations generations;
+    private final List<String> entities;
+
+    public GenerationKeyGenerator(EntityGenerations generations, String... entities) {
+        this.generations = generations;
+        this.entities = List.of(entities);
+    }
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        List<Object> filtros = new ArrayList<>(params.length);
+        for (Object param : params) {
+            filtros.add(normalize(param));
+        }
+        List<Long> actuales = new ArrayList<>(entities.size());
+        for (String entity : entities) {
+            actuales.add(generations.current(entity));
+        }
+        return new ListadoKey(actuales, method.getName(), filtros);
+    }
+
+    static Object normalize(Object param) {
+        if (param instanceof Optional<?> optional) {
+            return optional.map(GenerationKeyGenerator::normalize).orElse(null);
+        }
+        if (param instanceof String texto) {
+            String normalizado = texto.trim().toLowerCase(Locale.ROOT);
+            return normalizado.isEmpty() ? null : normalizado;
+        }
+        if (param instanceof Pageable pageable) {
+            return pageable.isPaged()
+                    ? pageable.getPageNumber() + ":" + pageable.getPageSize() + ":" + pageable.getSort()
+                    : "unpaged:" + pageable.getSort();
+        }
+        return param;
+    }
+
+    record ListadoKey(List<Long> generations, String method, List<Object> filtros) {}
+}
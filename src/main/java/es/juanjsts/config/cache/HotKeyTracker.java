@@ -0,0 +1,123 @@
+package es.juanjsts.config.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+// Cuenta los accesos por id de cada región y guarda los más pedidos en un fichero (región=id,id,...)
+// para que el calentamiento de caches del siguiente arranque los precargue. Cada región sigue como mucho
+// hot-keys-tracked ids: al llenarse Caffeine descarta los menos frecuentes, así que un barrido de ids no agota la memoria
+@Slf4j
+@Component
+public class HotKeyTracker implements InitializingBean, DisposableBean {
+    public static final String VIDEOJUEGOS = "videojuegos";
+
+    private final Map<String, Cache<Long, LongAdder>> accesos = new ConcurrentHashMap<>();
+    private final Path file;
+    private final int limit;
+    private final long saveMs;
+    private final long tracked;
+
+    private ScheduledExecutorService scheduler;
+
+    public HotKeyTracker(
+            @Value("${cache.warmup.hot-keys-file:hot-keys.properties}") String file,
+            @Value("${cache.warmup.hot-keys-limit:100}") int limit,
+            @Value("${cache.warmup.hot-keys-save-ms:60000}") long saveMs,
+            @Value("${cache.warmup.hot-keys-tracked:10000}") long tracked) {
+        this.file = Path.of(file);
+        this.limit = limit;
+        this.saveMs = saveMs;
+        this.tracked = tracked;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("cache-hot-keys").factory());
+        scheduler.scheduleWithFixedDelay(this::save, saveMs, saveMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        save();
+    }
+
+    public void record(String region, Long id) {
+        accesos.computeIfAbsent(region, k -> Caffeine.newBuilder().maximumSize(tracked).<Long, LongAdder>build())
+                .get(id, k -> new LongAdder())
+                .increment();
+    }
+
+    // Ids guardados en el arranque anterior, de más a menos pedidos
+    public List<Long> persisted(String region) {
+        String ids = load().getProperty(region, "");
+        return Arrays.stream(ids.split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .map(Long::valueOf)
+                .toList();
+    }
+
+    List<Long> hottest(String region) {
+        Cache<Long, LongAdder> contadores = accesos.get(region);
+        if (contadores == null) {
+            return List.of();
+        }
+        // Aplica los descartes pendientes para no ordenar más ids de los que se siguen
+        contadores.cleanUp();
+        return contadores.asMap().entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<Long, LongAdder> e) -> e.getValue().sum()).reversed())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    synchronized void save() {
+        if (accesos.isEmpty()) {
+            return;
+        }
+        // Las regiones sin accesos en este arranque conservan lo que ya había en el fichero
+        Properties properties = load();
+        accesos.keySet().forEach(region -> properties.setProperty(region,
+                hottest(region).stream().map(String::valueOf).collect(Collectors.joining(","))));
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            properties.store(writer, "Claves más pedidas para el calentamiento de caches");
+        } catch (IOException e) {
+            log.warn("No se han podido guardar las claves más pedidas en {}: {}", file, e.getMessage());
+        }
+    }
+
+    private Properties load() {
+        Properties properties = new Properties();
+        if (Files.isReadable(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                properties.load(reader);
+            } catch (IOException | IllegalArgumentException e) {
+                log.warn("No se han podido leer las claves más pedidas de {}: {}", file, e.getMessage());
+            }
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,55 @@
+package es.juanjsts.config.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Claves (ids o uuids) que se sabe que no existen, en la cache "<region>-missing" con un TTL corto:
+// las búsquedas repetidas de claves inexistentes responden desde memoria sin ir a la base de datos
+@RequiredArgsConstructor
+@Component
+public class NegativeCache {
+    private static final String SUFFIX = "-missing";
+
+    private final CacheManager cacheManager;
+
+    public boolean isMissing(String region, Object key) {
+        Cache missing = cacheManager.getCache(region + SUFFIX);
+        return missing != null && key != null && missing.get(key) != null;
+    }
+
+    public void markMissing(String region, Object key) {
+        Cache missing = cacheManager.getCache(region + SUFFIX);
+        if (missing != null && key != null) {
+            SingleFlightCaffeineCache.putLocal(missing, key, Boolean.TRUE);
+        }
+    }
+
+    // Al crear una clave se olvida que no existía, también tras el commit por si alguien la marcó mientras tanto
+    public void clear(String region, Object... keys) {
+        evict(region, keys);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(region, keys);
+                }
+            });
+        }
+    }
+
+    private void evict(String region, Object... keys) {
+        Cache missing = cacheManager.getCache(region + SUFFIX);
+        if (missing == null) {
+            return;
+        }
+        for (Object key : keys) {
+            if (key != null) {
+                missing.evict(key);
+            }
+        }
+    }
+}
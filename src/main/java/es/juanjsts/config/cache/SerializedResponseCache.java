@@ -0,0 +1,136 @@
+package es.juanjsts.config.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+// Guarda el JSON ya serializado de las respuestas de detalle para escribirlo tal cual en la respuesta.
+// Cada entrada es la de un id en una versión (su ETag: updatedAt y los datos relacionados que salen en el JSON):
+// si llega otra versión, porque se actualizó aquí o en otro nodo, se vuelve a serializar. Las escrituras
+// locales además la quitan con evict para no guardar bytes que ya no se van a servir
+@Slf4j
+@Component
+public class SerializedResponseCache {
+    public static final String VIDEOJUEGOS = "videojuegos";
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final boolean offHeap;
+    private final Cache<Clave, Entrada> cache;
+
+    public SerializedResponseCache(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${cache.json-bytes.enabled:false}") boolean enabled,
+            @Value("${cache.json-bytes.off-heap:false}") boolean offHeap,
+            @Value("${cache.json-bytes.max-bytes:67108864}") long maxBytes) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.offHeap = offHeap;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Clave clave, Entrada entrada) -> entrada.json().size())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "json-bytes");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // null si no se ha podido serializar, el llamante responde con el objeto
+    public Resource json(String region, Object id, Object version, Object value) {
+        Entrada entrada = cache.asMap().compute(new Clave(region, id), (clave, actual) ->
+                actual != null && actual.version().equals(version) ? actual : serializar(version, value));
+        return entrada == null ? null : entrada.json().resource();
+    }
+
+    public void evict(String region, Object id) {
+        cache.invalidate(new Clave(region, id));
+    }
+
+    private Entrada serializar(Object version, Object value) {
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(value);
+            return new Entrada(version, offHeap ? new Json.Directo(ByteBuffer.allocateDirect(bytes.length).put(bytes).flip()) : new Json.Heap(bytes));
+        } catch (JsonProcessingException e) {
+            log.warn("Error al serializar la respuesta para la cache de JSON: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private record Clave(String region, Object id) {}
+
+    private record Entrada(Object version, Json json) {}
+
+    private sealed interface Json {
+        int size();
+
+        Resource resource();
+
+        record Heap(byte[] bytes) implements Json {
+            public int size() {
+                return bytes.length;
+            }
+
+            public Resource resource() {
+                return new ByteArrayResource(bytes);
+            }
+        }
+
+        // Fuera del heap: se lee con una vista propia del buffer para que las lecturas concurrentes no se pisen
+        record Directo(ByteBuffer buffer) implements Json {
+            public int size() {
+                return buffer.capacity();
+            }
+
+            public Resource resource() {
+                return new AbstractResource() {
+                    @Override
+                    public String getDescription() {
+                        return "JSON cacheado fuera del heap";
+                    }
+
+                    @Override
+                    public long contentLength() {
+                        return buffer.capacity();
+                    }
+
+                    @Override
+                    public InputStream getInputStream() {
+                        ByteBuffer vista = buffer.asReadOnlyBuffer();
+                        return new InputStream() {
+                            @Override
+                            public int read() {
+                                return vista.hasRemaining() ? vista.get() & 0xFF : -1;
+                            }
+
+                            @Override
+                            public int read(byte[] b, int off, int len) {
+                                if (!vista.hasRemaining()) {
+                                    return -1;
+                                }
+                                int leidos = Math.min(len, vista.remaining());
+                                vista.get(b, off, leidos);
+                                return leidos;
+                            }
+                        };
+                    }
+                };
+            }
+        }
+    }
+}
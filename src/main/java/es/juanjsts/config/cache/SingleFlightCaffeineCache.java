@@ -0,0 +1,116 @@
+package es.juanjsts.config.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.concurrent.Callable;
+
+// Con @Cacheable(sync = true) CaffeineCache.get carga con el compute atómico de Caffeine: los fallos concurrentes
+// de una misma clave esperan a una sola carga. Sigue siendo una CaffeineCache para que actuator publique sus estadísticas.
+// Con un invalidador, put (@CachePut), evict y clear se reenvían al resto de nodos; las cargas por lectura
+// y lo que llega de otros nodos se aplican solo en local. CachingConfig registra la cache en el invalidador
+public class SingleFlightCaffeineCache extends CaffeineCache {
+    private final ClusterCacheInvalidator invalidator;
+
+    public SingleFlightCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                                     boolean allowNullValues) {
+        this(name, cache, allowNullValues, null);
+    }
+
+    public SingleFlightCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                                     boolean allowNullValues, ClusterCacheInvalidator invalidator) {
+        super(name, cache, allowNullValues);
+        this.invalidator = invalidator;
+    }
+
+    // Vuelve a cargar la clave aunque tenga un valor guardado (anterior, tal como está en la cache).
+    // Las recargas concurrentes de la clave se esperan en el compute y, si otra ya lo ha sustituido, se usa el suyo
+    @SuppressWarnings("unchecked")
+    protected <T> T reload(Object key, Object anterior, Callable<T> valueLoader) {
+        Object guardado = getNativeCache().asMap().compute(key, (k, actual) -> {
+            if (actual != null && actual != anterior) {
+                return actual;
+            }
+            try {
+                return toStoreValue(valueLoader.call());
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+        });
+        return (T) fromStoreValue(guardado);
+    }
+
+    // En los otros nodos el valor anterior se descarta y se vuelve a cargar cuando se pida
+    @Override
+    public void put(Object key, Object value) {
+        super.put(key, value);
+        if (invalidator != null) {
+            invalidator.evicted(getName(), key);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        super.evict(key);
+        if (invalidator != null) {
+            invalidator.evicted(getName(), key);
+        }
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean presente = super.evictIfPresent(key);
+        if (invalidator != null) {
+            invalidator.evicted(getName(), key);
+        }
+        return presente;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        if (invalidator != null) {
+            invalidator.cleared(getName());
+        }
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean habia = super.invalidate();
+        if (invalidator != null) {
+            invalidator.cleared(getName());
+        }
+        return habia;
+    }
+
+    public void putLocal(Object key, Object value) {
+        super.put(key, value);
+    }
+
+    public void evictLocal(Object key) {
+        super.evict(key);
+    }
+
+    public void clearLocal() {
+        super.clear();
+    }
+
+    // Para escrituras que solo afectan a este nodo (índices y caches negativas rellenados al leer)
+    static void putLocal(Cache cache, Object key, Object value) {
+        if (cache instanceof SingleFlightCaffeineCache local) {
+            local.putLocal(key, value);
+        } else {
+            cache.put(key, value);
+        }
+    }
+
+    static void evictLocal(Cache cache, Object key) {
+        if (cache instanceof SingleFlightCaffeineCache local) {
+            local.evictLocal(key);
+        } else {
+            cache.evict(key);
+        }
+    }
+}
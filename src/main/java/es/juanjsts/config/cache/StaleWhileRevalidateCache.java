@@ -0,0 +1,97 @@
+package es.juanjsts.config.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Cache que sirve valores caducados mientras se recargan: cada entrada guarda cuándo se escribió.
+// - Más nueva que fresh: se sirve tal cual.
+// - Dentro de fresh + grace: se sirve la caducada y se recarga en segundo plano.
+// - Más antigua: se recarga en el momento; si falla el acceso a datos se sirve la caducada hasta maxStale.
+//   Los demás errores (por ejemplo que ya no exista) se propagan: servir la caducada ocultaría el cambio.
+// El expireAfterWrite de Caffeine para estas caches debe ser al menos maxStale
+@Slf4j
+public class StaleWhileRevalidateCache extends SingleFlightCaffeineCache {
+    private final Policy policy;
+    private final Set<Object> refrescando = ConcurrentHashMap.newKeySet();
+
+    public StaleWhileRevalidateCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                                     boolean allowNullValues, Policy policy) {
+        this(name, cache, allowNullValues, null, policy);
+    }
+
+    public StaleWhileRevalidateCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                                     boolean allowNullValues, ClusterCacheInvalidator invalidator, Policy policy) {
+        super(name, cache, allowNullValues, invalidator);
+        this.policy = policy;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        if (!(getNativeCache().getIfPresent(key) instanceof Sello sello)) {
+            return super.get(key, valueLoader);
+        }
+        long edad = System.nanoTime() - sello.escrito();
+        T valor = (T) fromStoreValue(sello.valor());
+        if (edad < policy.fresh().toNanos()) {
+            return valor;
+        }
+        if (edad < policy.fresh().plus(policy.grace()).toNanos()) {
+            refrescar(key, sello, valueLoader);
+            return valor;
+        }
+        try {
+            return reload(key, sello, valueLoader);
+        } catch (DataAccessException e) {
+            if (edad < policy.maxStale().toNanos()) {
+                log.warn("Error al recargar {} de la cache {}, se sirve el valor caducado: {}", key, getName(), e.getMessage());
+                return valor;
+            }
+            throw e;
+        }
+    }
+
+    // Una sola recarga en segundo plano por clave; si falla se mantiene el valor actual.
+    // Solo se guarda si la entrada sigue siendo la que se refrescaba: un evict o un @CachePut
+    // que llegue mientras tanto no se deshace con el valor recargado
+    private void refrescar(Object key, Sello anterior, Callable<?> valueLoader) {
+        if (!refrescando.add(key)) {
+            return;
+        }
+        Thread.ofVirtual().name("cache-swr-" + getName()).start(() -> {
+            try {
+                Object nuevo = toStoreValue(valueLoader.call());
+                if (!getNativeCache().asMap().replace(key, anterior, nuevo)) {
+                    log.debug("La entrada {} de la cache {} cambió durante el refresco, se descarta", key, getName());
+                }
+            } catch (Exception e) {
+                log.warn("Error al refrescar {} de la cache {}: {}", key, getName(), e.getMessage());
+            } finally {
+                refrescando.remove(key);
+            }
+        });
+    }
+
+    boolean isRefreshing(Object key) {
+        return refrescando.contains(key);
+    }
+
+    @Override
+    protected Object toStoreValue(Object userValue) {
+        return new Sello(super.toStoreValue(userValue), System.nanoTime());
+    }
+
+    @Override
+    protected Object fromStoreValue(Object storeValue) {
+        return super.fromStoreValue(storeValue instanceof Sello sello ? sello.valor() : storeValue);
+    }
+
+    record Sello(Object valor, long escrito) {}
+
+    public record Policy(Duration fresh, Duration grace, Duration maxStale) {}
+}
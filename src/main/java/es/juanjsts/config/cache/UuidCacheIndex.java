@@ -0,0 +1,58 @@
+package es.juanjsts.config.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+// Índice uuid -> id en la cache "<region>-uuid": las búsquedas por uuid usan la misma entrada que las búsquedas por id.
+// Si la entrada del id ya no está (borrada o expirada) el alias se descarta y se trata como un fallo
+@RequiredArgsConstructor
+@Component
+public class UuidCacheIndex {
+    private static final String SUFFIX = "-uuid";
+
+    private final CacheManager cacheManager;
+
+    public <T> T get(String region, UUID uuid, Class<T> type) {
+        Cache alias = cacheManager.getCache(region + SUFFIX);
+        Cache entries = cacheManager.getCache(region);
+        if (alias == null || entries == null) {
+            return null;
+        }
+        Long id = alias.get(uuid, Long.class);
+        if (id == null) {
+            return null;
+        }
+        Cache.ValueWrapper cached = entries.get(id);
+        if (cached != null && type.isInstance(cached.get())) {
+            return type.cast(cached.get());
+        }
+        SingleFlightCaffeineCache.evictLocal(alias, uuid);
+        return null;
+    }
+
+    public void put(String region, UUID uuid, Long id, Object value) {
+        Cache entries = cacheManager.getCache(region);
+        if (entries != null) {
+            SingleFlightCaffeineCache.putLocal(entries, id, value);
+        }
+        link(region, uuid, id);
+    }
+
+    public void link(String region, UUID uuid, Long id) {
+        Cache alias = cacheManager.getCache(region + SUFFIX);
+        if (alias != null) {
+            SingleFlightCaffeineCache.putLocal(alias, uuid, id);
+        }
+    }
+
+    public void evict(String region, UUID uuid) {
+        Cache alias = cacheManager.getCache(region + SUFFIX);
+        if (alias != null) {
+            alias.evict(uuid);
+        }
+    }
+}
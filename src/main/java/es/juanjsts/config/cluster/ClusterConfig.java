@@ -0,0 +1,82 @@
+package es.juanjsts.config.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.juanjsts.cluster.services.ClusterBus;
+import es.juanjsts.cluster.services.InProcessClusterBus;
+import es.juanjsts.cluster.services.UdpClusterBus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.util.Arrays;
+import java.util.List;
+
+@Slf4j
+@Configuration
+public class ClusterConfig {
+    public enum Transport {LOCAL, UDP}
+
+    @Value("${cluster.transport:LOCAL}")
+    private Transport transport;
+
+    @Value("${cluster.udp.address:239.255.10.10}")
+    private String udpAddress;
+
+    @Value("${cluster.udp.port:47100}")
+    private int udpPort;
+
+    @Value("${cluster.udp.peers:}")
+    private String udpPeers;
+
+    @Value("${cluster.udp.interface:}")
+    private String udpInterface;
+
+    @Value("${cluster.batch.window-ms:20}")
+    private long batchWindowMs;
+
+    @Value("${cluster.batch.max-events:64}")
+    private int batchMaxEvents;
+
+    @Value("${cluster.dedup.capacity:10000}")
+    private int dedupCapacity;
+
+    @Bean
+    public ClusterBus clusterBus(ObjectMapper objectMapper) throws IOException {
+        log.info("Bus de cluster con transporte {}", transport);
+        if (transport == Transport.UDP) {
+            return new UdpClusterBus(objectMapper, InetAddress.getByName(udpAddress), udpPort, peers(), networkInterface(),
+                    batchWindowMs, batchMaxEvents, dedupCapacity);
+        }
+        return new InProcessClusterBus(batchWindowMs, batchMaxEvents, dedupCapacity);
+    }
+
+    // Lista host:puerto separada por comas, solo se usa con dirección unicast
+    private List<InetSocketAddress> peers() {
+        return Arrays.stream(udpPeers.split(","))
+                .map(String::trim)
+                .filter(peer -> !peer.isEmpty())
+                .map(peer -> {
+                    int separador = peer.lastIndexOf(':');
+                    return new InetSocketAddress(peer.substring(0, separador), Integer.parseInt(peer.substring(separador + 1)));
+                })
+                .toList();
+    }
+
+    // Sin interfaz configurada el multicast se queda en loopback (varios nodos en la misma máquina)
+    private NetworkInterface networkInterface() throws IOException {
+        if (udpInterface.isBlank()) {
+            return NetworkInterface.getByInetAddress(InetAddress.getLoopbackAddress());
+        }
+        // getByName devuelve null con un nombre desconocido y el bus fallaría más tarde sin decir por qué
+        NetworkInterface networkInterface = NetworkInterface.getByName(udpInterface.trim());
+        if (networkInterface == null) {
+            throw new IllegalStateException("cluster.udp.interface: no existe la interfaz de red '" + udpInterface.trim() + "'");
+        }
+        return networkInterface;
+    }
+}
@@ -0,0 +1,65 @@
+package es.juanjsts.config.websockets;
+
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cuenta los frames que ConcurrentWebSocketSessionDecorator descarta con OverflowStrategy.DROP.
+// El decorador no avisa al descartar, pero su buffer es FIFO: cuando llega a enviarse un frame,
+// los encolados antes que él que no se enviaron se han descartado
+class DropCountingSession extends WebSocketSessionDecorator {
+    private final Deque<WebSocketMessage<?>> encolados = new ArrayDeque<>();
+    private final AtomicLong dropped;
+
+    private DropCountingSession(WebSocketSession delegate, AtomicLong dropped) {
+        super(delegate);
+        this.dropped = dropped;
+    }
+
+    static ConcurrentWebSocketSessionDecorator decorate(WebSocketSession session, int sendTimeLimit, int bufferSizeLimit, AtomicLong dropped) {
+        DropCountingSession contador = new DropCountingSession(session, dropped);
+        ConcurrentWebSocketSessionDecorator decorated = new ConcurrentWebSocketSessionDecorator(
+                contador, sendTimeLimit, bufferSizeLimit, ConcurrentWebSocketSessionDecorator.OverflowStrategy.DROP);
+        // El callback se invoca justo después de añadir el frame al buffer del decorador
+        decorated.setMessageCallback(contador::encolado);
+        return decorated;
+    }
+
+    private void encolado(WebSocketMessage<?> message) {
+        synchronized (encolados) {
+            encolados.addLast(message);
+        }
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        synchronized (encolados) {
+            // Se compara por identidad: el mismo frame se comparte entre sesiones y payloads iguales no son el mismo envío
+            int posicion = 0;
+            boolean encontrado = false;
+            for (Iterator<WebSocketMessage<?>> it = encolados.iterator(); it.hasNext(); posicion++) {
+                if (it.next() == message) {
+                    encontrado = true;
+                    break;
+                }
+            }
+            if (encontrado) {
+                for (int i = 0; i < posicion; i++) {
+                    encolados.pollFirst();
+                }
+                encolados.pollFirst();
+                if (posicion > 0) {
+                    dropped.addAndGet(posicion);
+                }
+            }
+        }
+        super.sendMessage(message);
+    }
+}
@@ -0,0 +1,30 @@
+package es.juanjsts.config.websockets;
+
+import java.util.List;
+
+// Formato de las notificaciones según el subprotocolo negociado en el handshake
+public enum NotificationFormat {
+    JSON("v1.json.videojuegos"),
+    CBOR("v1.cbor.videojuegos");
+
+    // Subprotocolo anterior, se mantiene para los clientes existentes y recibe JSON
+    static final String LEGACY_SUBPROTOCOL = "subprotocol.demo.websocket";
+
+    private final String subprotocol;
+
+    NotificationFormat(String subprotocol) {
+        this.subprotocol = subprotocol;
+    }
+
+    public String getSubprotocol() {
+        return subprotocol;
+    }
+
+    public static NotificationFormat of(String acceptedProtocol) {
+        return CBOR.subprotocol.equals(acceptedProtocol) ? CBOR : JSON;
+    }
+
+    static List<String> subprotocols() {
+        return List.of(CBOR.subprotocol, JSON.subprotocol, LEGACY_SUBPROTOCOL);
+    }
+}
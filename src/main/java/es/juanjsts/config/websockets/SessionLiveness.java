@@ -0,0 +1,34 @@
+package es.juanjsts.config.websockets;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Última actividad (mensaje o pong) de cada sesión; se crea una entrada al conectar y los ticks no reservan memoria
+class SessionLiveness {
+    private final Map<String, AtomicLong> lastSeen = new ConcurrentHashMap<>();
+
+    void register(String sessionId, long now) {
+        lastSeen.put(sessionId, new AtomicLong(now));
+    }
+
+    void touch(String sessionId, long now) {
+        AtomicLong seen = lastSeen.get(sessionId);
+        if (seen != null) {
+            seen.set(now);
+        }
+    }
+
+    void remove(String sessionId) {
+        lastSeen.remove(sessionId);
+    }
+
+    boolean isIdle(String sessionId, long now, long idleTimeoutMs) {
+        AtomicLong seen = lastSeen.get(sessionId);
+        return seen == null || now - seen.get() > idleTimeoutMs;
+    }
+
+    int size() {
+        return lastSeen.size();
+    }
+}
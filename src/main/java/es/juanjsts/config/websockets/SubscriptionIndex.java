@@ -0,0 +1,136 @@
+package es.juanjsts.config.websockets;
+
+import es.juanjsts.websockets.notifications.models.NotificationTopic;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Índice inverso plataforma/género/id -> sesiones suscritas.
+// Al conectar una sesión recibe todas las notificaciones hasta que se suscribe a algún filtro.
+// Si después quita todos sus filtros no recibe nada hasta que vuelve a suscribirse;
+// un subscribe sin filtros la devuelve explícitamente a recibirlo todo.
+public class SubscriptionIndex {
+    private final Map<String, Set<String>> porPlataforma = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> porGenero = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> porId = new ConcurrentHashMap<>();
+    private final Map<String, Suscripcion> suscripciones = new ConcurrentHashMap<>();
+    private final Set<String> sinFiltro = ConcurrentHashMap.newKeySet();
+
+    public synchronized void register(String sessionId) {
+        suscripciones.put(sessionId, new Suscripcion());
+        sinFiltro.add(sessionId);
+    }
+
+    public synchronized void remove(String sessionId) {
+        Suscripcion suscripcion = suscripciones.remove(sessionId);
+        sinFiltro.remove(sessionId);
+        if (suscripcion != null) {
+            suscripcion.plataformas.forEach(p -> quitar(porPlataforma, p, sessionId));
+            suscripcion.generos.forEach(g -> quitar(porGenero, g, sessionId));
+            suscripcion.ids.forEach(id -> quitar(porId, id, sessionId));
+        }
+    }
+
+    public synchronized void subscribe(String sessionId, Collection<String> plataformas, Collection<String> generos, Collection<Long> ids) {
+        Suscripcion suscripcion = suscripciones.computeIfAbsent(sessionId, k -> new Suscripcion());
+        if (plataformas.isEmpty() && generos.isEmpty() && ids.isEmpty()) {
+            sinFiltro.add(sessionId);
+            return;
+        }
+        for (String plataforma : plataformas) {
+            String clave = NotificationTopic.normalize(plataforma);
+            if (suscripcion.plataformas.add(clave)) {
+                porPlataforma.computeIfAbsent(clave, k -> ConcurrentHashMap.newKeySet()).add(sessionId);
+            }
+        }
+        for (String genero : generos) {
+            String clave = NotificationTopic.normalize(genero);
+            if (suscripcion.generos.add(clave)) {
+                porGenero.computeIfAbsent(clave, k -> ConcurrentHashMap.newKeySet()).add(sessionId);
+            }
+        }
+        for (Long id : ids) {
+            if (suscripcion.ids.add(id)) {
+                porId.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(sessionId);
+            }
+        }
+        sinFiltro.remove(sessionId);
+    }
+
+    // Sin filtros se eliminan todas las suscripciones de la sesión y deja de recibir notificaciones.
+    // Quitar el último filtro tampoco la devuelve a recibirlo todo
+    public synchronized void unsubscribe(String sessionId, Collection<String> plataformas, Collection<String> generos, Collection<Long> ids) {
+        Suscripcion suscripcion = suscripciones.get(sessionId);
+        if (suscripcion == null) {
+            return;
+        }
+        boolean todas = plataformas.isEmpty() && generos.isEmpty() && ids.isEmpty();
+        for (String plataforma : todas ? Set.copyOf(suscripcion.plataformas) : plataformas) {
+            String clave = NotificationTopic.normalize(plataforma);
+            if (suscripcion.plataformas.remove(clave)) {
+                quitar(porPlataforma, clave, sessionId);
+            }
+        }
+        for (String genero : todas ? Set.copyOf(suscripcion.generos) : generos) {
+            String clave = NotificationTopic.normalize(genero);
+            if (suscripcion.generos.remove(clave)) {
+                quitar(porGenero, clave, sessionId);
+            }
+        }
+        for (Long id : todas ? Set.copyOf(suscripcion.ids) : ids) {
+            if (suscripcion.ids.remove(id)) {
+                quitar(porId, id, sessionId);
+            }
+        }
+        if (todas) {
+            sinFiltro.remove(sessionId);
+        }
+    }
+
+    // Solo se recorren las sesiones interesadas, no todas las conectadas
+    public Set<String> match(NotificationTopic topic) {
+        Set<String> resultado = new HashSet<>(sinFiltro);
+        topic.plataformas().forEach(p -> resultado.addAll(porPlataforma.getOrDefault(p, Set.of())));
+        topic.generos().forEach(g -> resultado.addAll(porGenero.getOrDefault(g, Set.of())));
+        topic.ids().forEach(id -> resultado.addAll(porId.getOrDefault(id, Set.of())));
+        return resultado;
+    }
+
+    public boolean matches(String sessionId, NotificationTopic topic) {
+        if (sinFiltro.contains(sessionId)) {
+            return true;
+        }
+        Suscripcion suscripcion = suscripciones.get(sessionId);
+        return suscripcion != null
+                && (topic.plataformas().stream().anyMatch(suscripcion.plataformas::contains)
+                || topic.generos().stream().anyMatch(suscripcion.generos::contains)
+                || topic.ids().stream().anyMatch(suscripcion.ids::contains));
+    }
+
+    // Confirmación para el cliente: con todas=false y sin filtros la sesión no recibe nada
+    public synchronized Estado estado(String sessionId) {
+        Suscripcion suscripcion = suscripciones.getOrDefault(sessionId, new Suscripcion());
+        return new Estado(Set.copyOf(suscripcion.plataformas), Set.copyOf(suscripcion.generos), Set.copyOf(suscripcion.ids),
+                sinFiltro.contains(sessionId));
+    }
+
+    private static <K> void quitar(Map<K, Set<String>> indice, K clave, String sessionId) {
+        indice.computeIfPresent(clave, (k, sesiones) -> {
+            sesiones.remove(sessionId);
+            return sesiones.isEmpty() ? null : sesiones;
+        });
+    }
+
+    // Se modifican con el lock pero matches las lee sin él desde los envíos, así que son concurrentes
+    private record Suscripcion(Set<String> plataformas, Set<String> generos, Set<Long> ids) {
+        Suscripcion() {
+            this(ConcurrentHashMap.newKeySet(), ConcurrentHashMap.newKeySet(), ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    public record Estado(Set<String> plataformas, Set<String> generos, Set<Long> ids, boolean todas) {
+    }
+}
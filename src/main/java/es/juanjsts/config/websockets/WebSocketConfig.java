@@ -1,26 +1,84 @@
 package es.juanjsts.config.websockets;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.juanjsts.websockets.notifications.services.NotificationReplayBuffer;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.web.socket.WebSocketExtension;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 
+import java.util.List;
+
+@Slf4j
+@RequiredArgsConstructor
 @Configuration
 @EnableWebSocket
 
 public class WebSocketConfig implements WebSocketConfigurer{
+    private final ObjectMapper objectMapper;
+    private final NotificationReplayBuffer replayBuffer;
+    private final MeterRegistry meterRegistry;
+
     @Value("${api.version}")
     private String apiVersion;
 
+    @Value("${websockets.send-timeout-ms:1000}")
+    private long sendTimeoutMs;
+
+    @Value("${websockets.session.send-time-limit-ms:5000}")
+    private int sendTimeLimitMs;
+
+    @Value("${websockets.session.buffer-size-limit:65536}")
+    private int bufferSizeLimit;
+
+    @Value("${websockets.session.slow-consumer-policy:CLOSE}")
+    private WebSocketHandler.SlowConsumerPolicy slowConsumerPolicy;
+
+    @Value("${websockets.heartbeat.interval-ms:15000}")
+    private long heartbeatIntervalMs;
+
+    @Value("${websockets.heartbeat.idle-timeout-ms:45000}")
+    private long idleTimeoutMs;
+
+    @Value("${websockets.permessage-deflate.enabled:true}")
+    private boolean permessageDeflate;
+
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry){
-        registry.addHandler(webSocketVideojuegosHandler(), "/ws/" + apiVersion + "/videojuegos");
+        registry.addHandler(webSocketVideojuegosHandler(), "/ws/" + apiVersion + "/videojuegos")
+                .setHandshakeHandler(handshakeHandler());
+    }
+
+    // El contenedor (Tomcat) anuncia permessage-deflate y se negocia si el cliente lo pide;
+    // con la propiedad a false se descarta la extensión en el handshake
+    private DefaultHandshakeHandler handshakeHandler() {
+        return new DefaultHandshakeHandler() {
+            @Override
+            protected List<WebSocketExtension> filterRequestedExtensions(ServerHttpRequest request,
+                    List<WebSocketExtension> requested, List<WebSocketExtension> supported) {
+                List<WebSocketExtension> extensions = super.filterRequestedExtensions(request, requested, supported);
+                if (permessageDeflate) {
+                    return extensions;
+                }
+                log.debug("permessage-deflate deshabilitado, extensiones pedidas: {}", requested);
+                return extensions.stream()
+                        .filter(extension -> !"permessage-deflate".equalsIgnoreCase(extension.getName()))
+                        .toList();
+            }
+        };
     }
 
     @Bean
     public WebSocketHandler webSocketVideojuegosHandler(){
-        return new WebSocketHandler("Videojuegos");
+        return new WebSocketHandler("Videojuegos", sendTimeoutMs, sendTimeLimitMs, bufferSizeLimit, slowConsumerPolicy, objectMapper, replayBuffer,
+                heartbeatIntervalMs, idleTimeoutMs, meterRegistry);
     }
 }
@@ -1,70 +1,401 @@
 package es.juanjsts.config.websockets;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import es.juanjsts.websockets.notifications.dto.SubscriptionRequest;
+import es.juanjsts.websockets.notifications.models.Notificacion;
+import es.juanjsts.websockets.notifications.services.NotificationReplayBuffer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
 import org.springframework.web.socket.SubProtocolCapable;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.io.IOException;
-import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
-public class WebSocketHandler extends TextWebSocketHandler implements SubProtocolCapable,WebSocketSender{
+public class WebSocketHandler extends TextWebSocketHandler implements SubProtocolCapable,WebSocketSender, InitializingBean, DisposableBean {
+    private static final long DEFAULT_SEND_TIMEOUT_MS = 1000;
+    private static final int DEFAULT_SEND_TIME_LIMIT_MS = 5000;
+    private static final int DEFAULT_BUFFER_SIZE_LIMIT = 64 * 1024;
+    private static final long DEFAULT_HEARTBEAT_INTERVAL_MS = 15_000;
+    private static final long DEFAULT_IDLE_TIMEOUT_MS = 45_000;
+    // Ping sin payload, el mismo frame sirve para todas las sesiones
+    private static final PingMessage PING = new PingMessage();
+
+    public enum SlowConsumerPolicy {CLOSE, DOWNGRADE}
+
     private final String entity;
+    private final long sendTimeoutMs;
+    private final int sendTimeLimitMs;
+    private final int bufferSizeLimit;
+    private final SlowConsumerPolicy slowConsumerPolicy;
+    private final ObjectMapper objectMapper;
+    private final NotificationReplayBuffer replayBuffer;
+    private final long heartbeatIntervalMs;
+    private final long idleTimeoutMs;
+    private final ObjectMapper cborMapper = new CBORMapper();
 
-    private final Set<WebSocketSession> sessions = new CopyOnWriteArraySet<>();
+    // Sesiones envueltas con un buffer acotado en tamaño y tiempo de envío
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong evictedSessions = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final SubscriptionIndex subscriptions = new SubscriptionIndex();
+    private final SessionLiveness liveness = new SessionLiveness();
+    // Sesiones con un replay en curso
+    private final Map<String, Reanudacion> reanudando = new ConcurrentHashMap<>();
+    private final AtomicLong reapedSessions = new AtomicLong();
+    private ScheduledExecutorService heartbeatScheduler;
+    private final WebSocketMetrics metrics;
+
+    // Cada envío a una sesión va en su propio hilo virtual, un cliente lento no retrasa al resto
+    private final ExecutorService sendExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
     public WebSocketHandler(String entity){
+        this(entity, DEFAULT_SEND_TIMEOUT_MS, DEFAULT_SEND_TIME_LIMIT_MS, DEFAULT_BUFFER_SIZE_LIMIT, SlowConsumerPolicy.CLOSE,
+                new ObjectMapper(), new NotificationReplayBuffer(1000), DEFAULT_HEARTBEAT_INTERVAL_MS, DEFAULT_IDLE_TIMEOUT_MS, Metrics.globalRegistry);
+    }
+
+    public WebSocketHandler(String entity, long sendTimeoutMs, int sendTimeLimitMs, int bufferSizeLimit,
+                            SlowConsumerPolicy slowConsumerPolicy, ObjectMapper objectMapper, NotificationReplayBuffer replayBuffer,
+                            long heartbeatIntervalMs, long idleTimeoutMs, MeterRegistry meterRegistry){
         this.entity = entity;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.slowConsumerPolicy = slowConsumerPolicy;
+        this.objectMapper = objectMapper;
+        this.replayBuffer = replayBuffer;
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.metrics = new WebSocketMetrics(meterRegistry, entity.toLowerCase());
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        metrics.bind(this);
+        if (heartbeatIntervalMs > 0) {
+            log.info("Heartbeat de {} cada {} ms, sesiones inactivas más de {} ms se cierran", entity, heartbeatIntervalMs, idleTimeoutMs);
+            heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("ws-heartbeat").factory());
+            heartbeatScheduler.scheduleAtFixedRate(this::heartbeat, heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+        }
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         log.info("Conexión establecida con el servidor");
         log.info("Sesión: {}", session);
-        sessions.add(session);
-        TextMessage message = new TextMessage("Update Web socket: " + entity + " - (App de Videojuegos)");
-        log.info("Servidor envía: {}", message);
-        session.sendMessage(message);
+        // CLOSE: al desbordar el buffer se cierra la sesión; DOWNGRADE: se descartan los mensajes más antiguos y se cuentan
+        WebSocketSession decorated = slowConsumerPolicy == SlowConsumerPolicy.CLOSE
+                ? new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, bufferSizeLimit, ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE)
+                : DropCountingSession.decorate(session, sendTimeLimitMs, bufferSizeLimit, droppedFrames);
+
+        // Reconexión con ?lastSeq=N: se reenvían solo los cambios perdidos. Los cambios en directo
+        // que lleguen mientras tanto se retienen desde antes de registrar la sesión
+        Long lastSeq = lastSeq(session);
+        if (lastSeq != null) {
+            reanudando.put(session.getId(), new Reanudacion());
+        }
+        sessions.put(session.getId(), decorated);
+        subscriptions.register(session.getId());
+        liveness.register(session.getId(), System.currentTimeMillis());
+
+        if (lastSeq != null) {
+            reanudar(decorated, lastSeq);
+        }
+    }
+
+    private Long lastSeq(WebSocketSession session) {
+        String lastSeq = session.getUri() != null
+                ? UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams().getFirst("lastSeq")
+                : null;
+        if (lastSeq == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastSeq);
+        } catch (NumberFormatException e) {
+            log.debug("lastSeq no válido en la sesión {}: {}", session.getId(), lastSeq);
+            return null;
+        }
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         log.info("Conexión cerrada con el servidor: {}", status);
-        sessions.remove(session);
+        sessions.remove(session.getId());
+        subscriptions.remove(session.getId());
+        liveness.remove(session.getId());
+        reanudando.remove(session.getId());
     }
 
+    // Cualquier mensaje del cliente, incluido el pong, cuenta como actividad
     @Override
-    public void sendMessage(String message) throws IOException{
-        log.info("Enviar mensaje de cambios en la entidad: {} : {}", entity,message);
-        for (WebSocketSession session : sessions) {
-            if (session.isOpen()){
-                log.info("Servidor WS envía: {}", message);
-                session.sendMessage(new TextMessage(message));
+    public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+        liveness.touch(session.getId(), System.currentTimeMillis());
+        super.handleMessage(session, message);
+    }
+
+    @Override
+    public void sendMessage(NotificationReplayBuffer.Entry entry) throws IOException {
+        List<WebSocketSession> destinos = new ArrayList<>();
+        for (String sessionId : subscriptions.match(entry.topic())) {
+            WebSocketSession session = sessions.get(sessionId);
+            if (session != null) {
+                destinos.add(session);
             }
         }
+        log.debug("Enviar cambio {} de la entidad {} a {} sesiones", entry.seq(), entity, destinos.size());
+        broadcast(new EntryFrames(entry), destinos);
     }
 
-    @Scheduled(fixedRate = 1000)
-    @Override
-    public void sedPeriodicMessage() throws IOException {
-        for (WebSocketSession session : sessions){
-            if (session.isOpen()){
-                String broadcast = "server periodic message: " + LocalTime.now();
-                log.info("Server sends: {}", broadcast);
-                session.sendMessage(new TextMessage(broadcast));
+    // Un tick del heartbeat: cierra las sesiones sin actividad y manda un ping al resto.
+    // Solo se registra un resumen cuando se ha cerrado alguna sesión
+    void heartbeat() {
+        long now = System.currentTimeMillis();
+        int reaped = 0;
+        for (WebSocketSession session : sessions.values()) {
+            if (!session.isOpen() || liveness.isIdle(session.getId(), now, idleTimeoutMs)) {
+                reap(session);
+                reaped++;
+                continue;
+            }
+            try {
+                send(session, PING);
+            } catch (IOException | IllegalStateException e) {
+                reap(session);
+                reaped++;
+            }
+        }
+        if (reaped > 0) {
+            log.info("Heartbeat de {}: {} sesiones inactivas cerradas, {} activas", entity, reaped, sessions.size());
+        }
+    }
+
+    private void reap(WebSocketSession session) {
+        if (sessions.remove(session.getId()) != null) {
+            reapedSessions.incrementAndGet();
+        }
+        subscriptions.remove(session.getId());
+        liveness.remove(session.getId());
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            log.debug("Error al cerrar la sesión {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    public int getLiveSessions() {
+        return sessions.size();
+    }
+
+    public long getReapedSessions() {
+        return reapedSessions.get();
+    }
+
+    // Cada frame se codifica una sola vez por formato y se comparte entre todas las sesiones
+    private void broadcast(FrameSource frames, Collection<WebSocketSession> destinos) throws IOException {
+        long inicio = System.nanoTime();
+        List<Future<?>> envios = new ArrayList<>(destinos.size());
+        for (WebSocketSession session : destinos) {
+            if (session.isOpen()) {
+                WebSocketMessage<?> frame = frames.para(session);
+                if (retener(session.getId(), frames.seq(), frame)) {
+                    continue;
+                }
+                envios.add(sendExecutor.submit(() -> {
+                    send(session, frame);
+                    return null;
+                }));
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        for (Future<?> envio : envios) {
+            try {
+                envio.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // Sin interrumpir: el decorador acota el envío con sendTimeLimit y una interrupción
+                // a mitad de escritura dejaría el socket en un estado inconsistente
+                envio.cancel(false);
+                metrics.sendTimeout();
+                log.warn("Tiempo de envío agotado ({} ms) para un cliente de {}", sendTimeoutMs, entity);
+            } catch (ExecutionException e) {
+                metrics.sendError();
+                log.warn("Error al enviar a un cliente de {}: {}", entity, e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        metrics.recordBroadcast(inicio);
+        log.debug("Mensaje de {} enviado a {} sesiones", entity, envios.size());
+    }
+
+    private void send(WebSocketSession session, WebSocketMessage<?> frame) throws IOException {
+        long inicio = System.nanoTime();
+        try {
+            session.sendMessage(frame);
+            metrics.recordSend(inicio);
+        } catch (SessionLimitExceededException e) {
+            evict(session, e.getStatus(), e.getMessage());
+        }
+    }
+
+    // Durante el replay los frames en directo para la sesión se retienen y al terminar se envían,
+    // en orden y sin los que ya iban en el replay, para que el cliente no los reciba duplicados ni desordenados
+    private boolean retener(String sessionId, long seq, WebSocketMessage<?> frame) {
+        Reanudacion reanudacion = reanudando.get(sessionId);
+        if (reanudacion == null) {
+            return false;
+        }
+        synchronized (reanudacion) {
+            if (reanudacion.terminada) {
+                return false;
+            }
+            reanudacion.retenidos.add(new Retenido(seq, frame));
+            return true;
+        }
+    }
+
+    private void reanudar(WebSocketSession session, long lastSeq) throws IOException {
+        Reanudacion reanudacion = reanudando.computeIfAbsent(session.getId(), k -> new Reanudacion());
+        long ultimo = lastSeq;
+        try {
+            ultimo = replay(session, lastSeq);
+        } finally {
+            synchronized (reanudacion) {
+                for (Retenido retenido : reanudacion.retenidos) {
+                    // Los frames sin secuencia no forman parte del replay y se envían siempre
+                    if (retenido.seq() <= 0 || retenido.seq() > ultimo) {
+                        send(session, retenido.frame());
+                    }
+                }
+                reanudacion.terminada = true;
+            }
+            reanudando.remove(session.getId(), reanudacion);
+        }
+    }
+
+    // Devuelve la última secuencia cubierta por el replay
+    private long replay(WebSocketSession session, long lastSeq) throws IOException {
+        NotificationReplayBuffer.Replay replay = replayBuffer.since(lastSeq);
+        if (replay.resyncRequired()) {
+            log.info("Sesión {} con lastSeq {} fuera del buffer (último {}), se pide resincronizar", session.getId(), lastSeq, replay.lastSeq());
+            String resync = objectMapper.writeValueAsString(Notificacion.resync(entity.toUpperCase(), replay.lastSeq()));
+            send(session, new Frames(resync).para(session));
+            return replay.lastSeq();
+        }
+        log.info("Reenviando {} notificaciones a la sesión {} desde lastSeq {}", replay.entries().size(), session.getId(), lastSeq);
+        for (NotificationReplayBuffer.Entry entry : replay.entries()) {
+            if (subscriptions.matches(session.getId(), entry.topic())) {
+                send(session, new EntryFrames(entry).para(session));
             }
         }
+        return replay.lastSeq();
+    }
+
+    private void evict(WebSocketSession session, CloseStatus status, String reason) {
+        if (sessions.remove(session.getId()) != null) {
+            long total = evictedSessions.incrementAndGet();
+            log.warn("Sesión {} expulsada por cliente lento ({} en total): {}", session.getId(), total, reason);
+        }
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            log.debug("Error al cerrar la sesión {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    public long getEvictedSessions() {
+        return evictedSessions.get();
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames.get();
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        handleSubscription(session, () -> objectMapper.readValue(message.getPayload(), SubscriptionRequest.class));
+    }
+
+    // Los clientes que negocian CBOR pueden enviar también sus suscripciones en binario.
+    // Este método no admite excepciones comprobadas: si falla la respuesta se cierra la sesión,
+    // igual que hace Spring cuando handleTextMessage lanza
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        byte[] payload = new byte[message.getPayloadLength()];
+        message.getPayload().get(payload);
+        try {
+            handleSubscription(session, () -> cborMapper.readValue(payload, SubscriptionRequest.class));
+        } catch (IOException e) {
+            log.warn("Error al responder a la suscripción binaria de la sesión {}: {}", session.getId(), e.getMessage());
+            try {
+                session.close(CloseStatus.SERVER_ERROR);
+            } catch (IOException ex) {
+                log.debug("Error al cerrar la sesión {}: {}", session.getId(), ex.getMessage());
+            }
+        }
+    }
+
+    private void handleSubscription(WebSocketSession session, SubscriptionReader reader) throws IOException {
+        WebSocketSession decorated = sessions.get(session.getId());
+        if (decorated == null) {
+            return;
+        }
+        SubscriptionRequest request;
+        try {
+            request = reader.read();
+        } catch (JsonProcessingException e) {
+            log.debug("Mensaje de suscripción no válido de la sesión {}: {}", session.getId(), e.getOriginalMessage());
+            send(decorated, new Frames("{\"error\":\"Mensaje de suscripción no válido\"}").para(decorated));
+            return;
+        }
+        if (request.action() == null) {
+            send(decorated, new Frames("{\"error\":\"Falta la acción: subscribe o unsubscribe\"}").para(decorated));
+            return;
+        }
+
+        switch (request.action()) {
+            case SUBSCRIBE -> subscriptions.subscribe(session.getId(), request.plataformas(), request.generos(), request.ids());
+            case UNSUBSCRIBE -> subscriptions.unsubscribe(session.getId(), request.plataformas(), request.generos(), request.ids());
+            case RESUME -> {
+                if (request.lastSeq() != null) {
+                    reanudar(decorated, request.lastSeq());
+                }
+                return;
+            }
+        }
+        SubscriptionIndex.Estado estado = subscriptions.estado(session.getId());
+        log.info("Sesión {} actualiza su suscripción: {}", session.getId(), estado);
+        send(decorated, new Frames(objectMapper.writeValueAsString(estado)).para(decorated));
     }
 
     @Override
@@ -74,6 +405,106 @@ public class WebSocketHandler extends TextWebSocketHandler implements SubProtoco
 
     @Override
     public List<String> getSubProtocols() {
-        return List.of("subprotocol.demo.websocket");
+        return NotificationFormat.subprotocols();
+    }
+
+    @Override
+    public void destroy() {
+        if (heartbeatScheduler != null) {
+            heartbeatScheduler.shutdownNow();
+        }
+        sendExecutor.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface SubscriptionReader {
+        SubscriptionRequest read() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface FrameSource {
+        WebSocketMessage<?> para(WebSocketSession session) throws IOException;
+
+        // 0 para los mensajes que no pasan por el buffer de replay
+        default long seq() {
+            return 0;
+        }
+    }
+
+    private static final class Reanudacion {
+        private final List<Retenido> retenidos = new ArrayList<>();
+        private boolean terminada;
+    }
+
+    private record Retenido(long seq, WebSocketMessage<?> frame) {}
+
+    // Un mensaje en JSON con sus frames por formato; el binario solo se codifica si alguna sesión lo negoció
+    private final class Frames implements FrameSource {
+        private final String json;
+        private TextMessage text;
+        private BinaryMessage binary;
+
+        Frames(String json) {
+            this.json = json;
+        }
+
+        @Override
+        public WebSocketMessage<?> para(WebSocketSession session) throws IOException {
+            if (NotificationFormat.of(session.getAcceptedProtocol()) == NotificationFormat.CBOR) {
+                if (binary == null) {
+                    binary = new BinaryMessage(cborMapper.writeValueAsBytes(objectMapper.readTree(json)));
+                }
+                return binary;
+            }
+            if (text == null) {
+                text = new TextMessage(json);
+            }
+            return text;
+        }
+    }
+
+    // Frames de una entrada del buffer. De un lote cada sesión recibe solo las notificaciones que coinciden
+    // con su suscripción; las sesiones con el mismo subconjunto comparten el frame
+    private final class EntryFrames implements FrameSource {
+        private final NotificationReplayBuffer.Entry entry;
+        private final Frames completo;
+        private final Map<List<Integer>, Frames> parciales = new HashMap<>();
+
+        EntryFrames(NotificationReplayBuffer.Entry entry) {
+            this.entry = entry;
+            this.completo = new Frames(entry.json());
+        }
+
+        @Override
+        public long seq() {
+            return entry.seq();
+        }
+
+        @Override
+        public WebSocketMessage<?> para(WebSocketSession session) throws IOException {
+            NotificationReplayBuffer.Lote lote = entry.lote();
+            if (lote == null) {
+                return completo.para(session);
+            }
+            List<Integer> indices = new ArrayList<>(lote.topics().size());
+            for (int i = 0; i < lote.topics().size(); i++) {
+                if (subscriptions.matches(session.getId(), lote.topics().get(i))) {
+                    indices.add(i);
+                }
+            }
+            if (indices.size() == lote.topics().size()) {
+                return completo.para(session);
+            }
+            Frames parcial = parciales.get(indices);
+            if (parcial == null) {
+                Notificacion<List<Notificacion<?>>> batch = lote.notificacion();
+                List<Notificacion<?>> items = new ArrayList<>(indices.size());
+                indices.forEach(i -> items.add(batch.data().get(i)));
+                parcial = new Frames(objectMapper.writeValueAsString(
+                        new Notificacion<>(batch.entity(), batch.type(), items, batch.createdAt(), entry.seq())));
+                parciales.put(indices, parcial);
+            }
+            return parcial.para(session);
+        }
     }
 }
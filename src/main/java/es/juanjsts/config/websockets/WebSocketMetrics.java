@@ -0,0 +1,78 @@
+package es.juanjsts.config.websockets;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+// Métricas de un endpoint WebSocket, etiquetadas con el nombre del endpoint
+class WebSocketMetrics {
+    private final MeterRegistry registry;
+    private final String endpoint;
+    private final Timer broadcastTimer;
+    private final Timer sendTimer;
+    private final Counter sendTimeouts;
+    private final Counter sendErrors;
+
+    WebSocketMetrics(MeterRegistry registry, String endpoint) {
+        this.registry = registry;
+        this.endpoint = endpoint;
+        broadcastTimer = Timer.builder("websocket.broadcast.duration")
+                .description("Tiempo de un broadcast hasta que todas las sesiones han recibido el frame o ha vencido el plazo")
+                .tag("endpoint", endpoint)
+                .publishPercentileHistogram()
+                .register(registry);
+        sendTimer = Timer.builder("websocket.send.duration")
+                .description("Latencia de envío de un frame a una sesión")
+                .tag("endpoint", endpoint)
+                .publishPercentileHistogram()
+                .register(registry);
+        sendTimeouts = Counter.builder("websocket.send.failures")
+                .description("Envíos a una sesión que no se han completado")
+                .tags("endpoint", endpoint, "reason", "timeout")
+                .register(registry);
+        sendErrors = Counter.builder("websocket.send.failures")
+                .description("Envíos a una sesión que no se han completado")
+                .tags("endpoint", endpoint, "reason", "error")
+                .register(registry);
+    }
+
+    // Los medidores que leen del handler se registran cuando ya está construido
+    void bind(WebSocketHandler handler) {
+        Gauge.builder("websocket.sessions", handler, WebSocketHandler::getLiveSessions)
+                .description("Sesiones conectadas")
+                .tag("endpoint", endpoint)
+                .register(registry);
+        FunctionCounter.builder("websocket.sessions.closed", handler, WebSocketHandler::getEvictedSessions)
+                .description("Sesiones cerradas por el servidor")
+                .tags("endpoint", endpoint, "reason", "slow-consumer")
+                .register(registry);
+        FunctionCounter.builder("websocket.sessions.closed", handler, WebSocketHandler::getReapedSessions)
+                .description("Sesiones cerradas por el servidor")
+                .tags("endpoint", endpoint, "reason", "idle")
+                .register(registry);
+        FunctionCounter.builder("websocket.send.failures", handler, WebSocketHandler::getDroppedFrames)
+                .description("Frames descartados del buffer de una sesión lenta con la política DOWNGRADE")
+                .tags("endpoint", endpoint, "reason", "dropped")
+                .register(registry);
+    }
+
+    void recordBroadcast(long startNanos) {
+        broadcastTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordSend(long startNanos) {
+        sendTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void sendTimeout() {
+        sendTimeouts.increment();
+    }
+
+    void sendError() {
+        sendErrors.increment();
+    }
+}
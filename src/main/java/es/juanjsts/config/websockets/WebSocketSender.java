@@ -1,9 +1,10 @@
 package es.juanjsts.config.websockets;
 
+import es.juanjsts.websockets.notifications.services.NotificationReplayBuffer;
+
 import java.io.IOException;
 
 public interface WebSocketSender {
-    void sendMessage(String message) throws IOException;
-
-    void sedPeriodicMessage() throws IOException;
+    // Solo a las sesiones suscritas; de un lote cada sesión recibe únicamente las notificaciones que le interesan
+    void sendMessage(NotificationReplayBuffer.Entry entry) throws IOException;
 }
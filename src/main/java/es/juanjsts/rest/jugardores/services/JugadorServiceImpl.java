@@ -1,11 +1,8 @@
 package es.juanjsts.rest.jugardores.services;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import es.juanjsts.config.websockets.WebSocketConfig;
-import es.juanjsts.config.websockets.WebSocketHandler;
+import es.juanjsts.config.cache.UuidCacheIndex;
 import es.juanjsts.rest.plataformas.models.Plataforma;
-import es.juanjsts.rest.plataformas.repositories.PlataformaRepository;
+import es.juanjsts.rest.plataformas.services.PlataformaNombreIndex;
 import es.juanjsts.rest.plataformas.services.PlataformaService;
 import es.juanjsts.rest.jugardores.dto.JugadorCreateDto;
 import es.juanjsts.rest.jugardores.dto.JugadorResponseDto;
@@ -19,10 +16,12 @@ import es.juanjsts.rest.jugardores.repositories.JugadorRepository;
 import es.juanjsts.websockets.notifications.dto.VideojuegoNotificationResponse;
 import es.juanjsts.websockets.notifications.mappers.VideojuegoNotificationMapper;
 import es.juanjsts.websockets.notifications.models.Notificacion;
+import es.juanjsts.websockets.notifications.models.NotificationTopic;
+import es.juanjsts.websockets.notifications.services.NotificationOutbox;
 import jakarta.persistence.criteria.Join;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.InitializingBean;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
@@ -37,27 +36,20 @@ import java.util.Optional;
 import java.util.UUID;
 
 @RequiredArgsConstructor
-@CacheConfig(cacheNames = {"videojuegos"})
+@CacheConfig(cacheNames = {JugadorServiceImpl.CACHE_NAME})
 @Slf4j
 @Service
-public class JugadorServiceImpl implements JugadorService, InitializingBean {
+public class JugadorServiceImpl implements JugadorService {
+    static final String CACHE_NAME = "jugadores";
+
     private final JugadorRepository videojuegoRepository;
     private final JugadorMapper videojuegoMapper;
     private final PlataformaService plataformaService;
-    private final PlataformaRepository plataformaRepository;
+    private final PlataformaNombreIndex plataformaNombreIndex;
 
-    private final WebSocketConfig webSocketConfig;
-    private final ObjectMapper objectMapper;
     private final VideojuegoNotificationMapper videojuegoNotificationMapper;
-    private WebSocketHandler webSocketService;
-
-    public void afterPropertiesSet(){
-        this.webSocketService = this.webSocketConfig.webSocketVideojuegosHandler();
-    }
-
-    public void setWebSocketService(WebSocketHandler webSocketHandler) {
-        this.webSocketService = webSocketHandler;
-    }
+    private final NotificationOutbox notificationOutbox;
+    private final UuidCacheIndex uuidCacheIndex;
 
     @Override
     public Page<JugadorResponseDto> findAll(Optional<String> nombre, Optional<String> plataforma, Optional<Boolean> isDeleted, Pageable pageable) {
@@ -87,26 +79,34 @@ public class JugadorServiceImpl implements JugadorService, InitializingBean {
                 .map(videojuegoMapper::toVideojuegoResponseDto);
     }
 
-    @Cacheable(key = "#id")
+    @Cacheable(key = "#id", sync = true)
     @Override
     public JugadorResponseDto findById(Long id) {
         log.info("Buscando tarjeta por id {}", id);
-        return videojuegoMapper.toVideojuegoResponseDto(videojuegoRepository.findById(id)
+        var encontrado = videojuegoMapper.toVideojuegoResponseDto(videojuegoRepository.findById(id)
                 .orElseThrow(()-> new JugadorNotFoundException(id)));
+        uuidCacheIndex.link(CACHE_NAME, encontrado.getUuid(), id);
+        return encontrado;
     }
 
-    @Cacheable(key = "#id")
+    // Sin @Cacheable: el uuid se resuelve al id con el índice de alias y se usa la misma entrada que findById
     @Override
     public JugadorResponseDto findByUuid(String uuid) {
         log.info("Buscando tarjeta por uuid {}", uuid);
+        UUID myUUID;
         try {
-            var myUUID = UUID.fromString(uuid);
-            return videojuegoMapper.toVideojuegoResponseDto(videojuegoRepository.findByUuid(myUUID)
-                    .orElseThrow(()-> new JugadorNotFoundException(myUUID)));
-
+            myUUID = UUID.fromString(uuid);
         } catch (IllegalArgumentException e){
             throw new JugadorBadUuidException(uuid);
         }
+        var cacheado = uuidCacheIndex.get(CACHE_NAME, myUUID, JugadorResponseDto.class);
+        if (cacheado != null) {
+            return cacheado;
+        }
+        var encontrado = videojuegoMapper.toVideojuegoResponseDto(videojuegoRepository.findByUuid(myUUID)
+                    .orElseThrow(()-> new JugadorNotFoundException(myUUID)));
+        uuidCacheIndex.put(CACHE_NAME, myUUID, encontrado.getId(), encontrado);
+        return encontrado;
     }
 
     @Override
@@ -128,10 +128,10 @@ public class JugadorServiceImpl implements JugadorService, InitializingBean {
         return videojuegoMapper.toVideojuegoResponseDto(videojuegoEncontrado);
     }
 
-    private Plataforma checkPlataforma(String nombrePlataforma){
+    private PlataformaNombreIndex.Entrada checkPlataforma(String nombrePlataforma){
         log.info("Buscando videojuego por nombre: {}", nombrePlataforma);
-        var plataforma = plataformaRepository.findByNombreEqualsIgnoreCase(nombrePlataforma);
-        if (plataforma.isEmpty() || plataforma.get().getIsDeleted()){
+        var plataforma = plataformaNombreIndex.find(nombrePlataforma);
+        if (plataforma.isEmpty() || plataforma.get().deleted()){
             throw new JugadorBadRequestException("La plataforma " + nombrePlataforma + " no existe o está borrado");
         }
         return plataforma.get();
@@ -139,32 +139,37 @@ public class JugadorServiceImpl implements JugadorService, InitializingBean {
 
     @CachePut(key = "#result.id")
     @Override
+    @Transactional
     public JugadorResponseDto save(JugadorCreateDto videojuegocreateDto) {
         log.info("Guardando videojuego: {}", videojuegocreateDto);
-        Plataforma plataforma = checkPlataforma(videojuegocreateDto.getPlataforma());
+        var plataforma = checkPlataforma(videojuegocreateDto.getPlataforma());
         Jugador nuevoVideojuego = videojuegoRepository.save(
-                videojuegoMapper.toVideojuego(videojuegocreateDto, plataforma));
+                videojuegoMapper.toVideojuego(videojuegocreateDto, plataforma.toReference()));
         onChange(Notificacion.Tipo.CREATE, nuevoVideojuego);
+        uuidCacheIndex.link(CACHE_NAME, nuevoVideojuego.getUuid(), nuevoVideojuego.getId());
         return videojuegoMapper.toVideojuegoResponseDto(nuevoVideojuego);
     }
 
     @CachePut(key = "#result.id")
     @Override
+    @Transactional
     public JugadorResponseDto save(JugadorCreateDto videojuegoCreateDto, Long usuarioId){
         log.info("Guardando videojuego: {} de usuarioId: {}", videojuegoCreateDto, usuarioId);
-        Plataforma plataforma = checkPlataforma(videojuegoCreateDto.getPlataforma());
-        var usuario = plataforma.getUsuario();
-        if ((usuario != null) && (!usuario.getId().equals(usuarioId))){
+        var plataforma = checkPlataforma(videojuegoCreateDto.getPlataforma());
+        var propietarioId = plataforma.usuarioId();
+        if ((propietarioId != null) && (!propietarioId.equals(usuarioId))){
             throw new JugadorBadRequestException("La usuario no se corresponde con la plataforma");
         }
         Jugador nuevoVideojuego = videojuegoRepository.save(
-                videojuegoMapper.toVideojuego(videojuegoCreateDto, plataforma));
+                videojuegoMapper.toVideojuego(videojuegoCreateDto, plataforma.toReference()));
         onChange(Notificacion.Tipo.CREATE, nuevoVideojuego);
+        uuidCacheIndex.link(CACHE_NAME, nuevoVideojuego.getUuid(), nuevoVideojuego.getId());
         return videojuegoMapper.toVideojuegoResponseDto(nuevoVideojuego);
     }
 
     @CachePut(key = "#result.id")
     @Override
+    @Transactional
     public JugadorResponseDto update(Long id, JugadorUpdateDto videojuegoupdateDto) {
         log.info("Actualizando videojuego con id: {} con videojuego: {}", id, videojuegoupdateDto);
         var videojuegoActual = videojuegoRepository.findById(id)
@@ -175,11 +180,13 @@ public class JugadorServiceImpl implements JugadorService, InitializingBean {
         );
 
         onChange(Notificacion.Tipo.UPDATE, videojuegoActualizado);
+        uuidCacheIndex.link(CACHE_NAME, videojuegoActualizado.getUuid(), videojuegoActualizado.getId());
         return videojuegoMapper.toVideojuegoResponseDto(videojuegoActualizado);
     }
 
     @CachePut(key = "#result.id")
     @Override
+    @Transactional
     public JugadorResponseDto update(Long id, JugadorUpdateDto videojuegoupdateDto, Long usuarioId){
         log.info("Actualizando videojuego por id: {}", id);
         var videojuegoActual = videojuegoRepository.findById(id).orElseThrow(()-> new JugadorNotFoundException(id));
@@ -190,20 +197,24 @@ public class JugadorServiceImpl implements JugadorService, InitializingBean {
         Jugador videojuegoUpdated = videojuegoRepository.save(
                 videojuegoMapper.toVideojuego(videojuegoupdateDto, videojuegoActual));
         onChange(Notificacion.Tipo.UPDATE, videojuegoUpdated);
+        uuidCacheIndex.link(CACHE_NAME, videojuegoUpdated.getUuid(), videojuegoUpdated.getId());
         return videojuegoMapper.toVideojuegoResponseDto(videojuegoUpdated);
     }
 
     @CacheEvict(key = "#id")
     @Override
+    @Transactional
     public void deleteById(Long id) {
         log.debug("Eliminando videojuego con id: {}", id);
         Jugador videojuegoDeleted = videojuegoRepository.findById(id).orElseThrow(()-> new JugadorNotFoundException(id));
         videojuegoRepository.deleteById(id);
         onChange(Notificacion.Tipo.DELETE, videojuegoDeleted);
+        uuidCacheIndex.evict(CACHE_NAME, videojuegoDeleted.getUuid());
     }
 
     @CacheEvict(key = "#id")
     @Override
+    @Transactional
     public void deleteById(Long id, Long usuarioId){
         log.debug("Eliminando videojuego con id: {}", id);
         Jugador videojuegoDeleted = videojuegoRepository.findById(id).orElseThrow(()-> new JugadorNotFoundException(id));
@@ -213,42 +224,21 @@ public class JugadorServiceImpl implements JugadorService, InitializingBean {
         }
         videojuegoRepository.deleteById(id);
         onChange(Notificacion.Tipo.DELETE, videojuegoDeleted);
+        uuidCacheIndex.evict(CACHE_NAME, videojuegoDeleted.getUuid());
     }
 
     void onChange(Notificacion.Tipo tipo, Jugador data){
         log.debug("Servicio de productos onChange con tipo: {} y datos: {}", tipo, data);
 
-        if (webSocketService == null){
-            log.warn("No se ha podido enviar la notificación a los clientes ws, no se ha encontrado el servicio");
-            webSocketService = this.webSocketConfig.webSocketVideojuegosHandler();
-        }
+        Notificacion<VideojuegoNotificationResponse> notificacion = new Notificacion<>(
+                "VIDEOJUEGOS",
+                tipo,
+                videojuegoNotificationMapper.toVideojuegoNotificationDto(data),
+                LocalDateTime.now().toString()
+        );
+        NotificationTopic topic = NotificationTopic.of(notificacion.data().id(), notificacion.data().plataforma(), notificacion.data().genero());
 
-        try {
-            Notificacion<VideojuegoNotificationResponse> notificacion = new Notificacion<>(
-                    "VIDEOJUEGOS",
-                    tipo,
-                    videojuegoNotificationMapper.toVideojuegoNotificationDto(data),
-                    LocalDateTime.now().toString()
-            );
-
-            String json = objectMapper.writeValueAsString((notificacion));
-
-            log.info("Enviando mensaje a los clientes ws");
-
-            Thread senderThread = new Thread(() -> {
-                try{
-                    webSocketService.sendMessage(json);
-                } catch (Exception e){
-                    log.error("Error al enviar el mensaje a través del servicio webSocket", e);
-                }
-            });
-
-            senderThread.setName("WebSocketVideojuego-" + data.getId());
-            senderThread.setDaemon(true);
-            senderThread.start();
-            log.info("Hilo de websocket iniciado: {}", data.getId());
-        } catch (JsonProcessingException e){
-            log.error("Error al convertir la notificación a JSON", e);
-        }
+        // Se guarda en el outbox dentro de la transacción del cambio, el relay la envía tras el commit
+        notificationOutbox.record("JUGADORES-" + data.getId(), notificacion, topic);
     }
 }
@@ -1,9 +1,11 @@
 package es.juanjsts.rest.plataformas.controllers;
 
+import es.juanjsts.config.cache.EntityGenerations;
 import es.juanjsts.rest.plataformas.dto.PlataformaCreatedDto;
 import es.juanjsts.rest.plataformas.dto.PlataformaUpdateDto;
 import es.juanjsts.rest.plataformas.models.Plataforma;
 import es.juanjsts.rest.plataformas.services.PlataformaService;
+import es.juanjsts.utils.http.EntityTags;
 import es.juanjsts.utils.pagination.PageResponse;
 import es.juanjsts.utils.pagination.PaginationLinksUtils;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,6 +23,7 @@ import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.util.HashMap;
@@ -34,6 +37,7 @@ import java.util.Optional;
 public class PlataformaRestController {
     private final PlataformaService plataformaService;
     private final PaginationLinksUtils paginationLinksUtils;
+    private final EntityGenerations entityGenerations;
 
     @GetMapping
     public ResponseEntity<PageResponse<Plataforma>> getAll(
@@ -43,14 +47,22 @@ public class PlataformaRestController {
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
             @RequestParam(defaultValue = "asc") String direction,
-            HttpServletRequest request
+            HttpServletRequest request,
+            WebRequest webRequest
     ) {
         log.info("Buscando plataformas por nombre: {}, isDeleted {}", nombre, isDeleted);
+        // Cada plataforma incluye sus videojuegos, así que el listado depende de ambas generaciones
+        String etag = EntityTags.listado(EntityGenerations.PLATAFORMAS,
+                entityGenerations.current(EntityGenerations.PLATAFORMAS), entityGenerations.current(EntityGenerations.VIDEOJUEGOS));
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         Sort sort = direction.equalsIgnoreCase(Sort.Direction.ASC.name()) ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
         Pageable pageable = PageRequest.of(page, size, sort);
         UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromUriString(request.getRequestURI().toString());
         Page<Plataforma> pageResult = plataformaService.findAll(nombre, isDeleted, pageable);
         return ResponseEntity.ok()
+                .eTag(etag)
                 .header("link", paginationLinksUtils.createLinkHeader(pageResult, uriBuilder))
                 .body(PageResponse.of(pageResult, sortBy,direction));
     }
@@ -58,7 +70,13 @@ public class PlataformaRestController {
     @GetMapping("/{id}")
     public ResponseEntity<Plataforma> getById(@PathVariable Long id){
         log.info("Buscando Plataforma con id: {}", id);
-        return ResponseEntity.ok(plataformaService.findById(id));
+        Plataforma plataforma = plataformaService.findById(id);
+        // La plataforma incluye sus videojuegos: cualquier cambio en ellos cambia el ETag, y sin Last-Modified
+        // porque su updatedAt no cambia cuando cambian los videojuegos
+        return ResponseEntity.ok()
+                .eTag(EntityTags.of(plataforma.getId(), plataforma.getUpdatedAt(),
+                        EntityTags.generacion(entityGenerations.current(EntityGenerations.VIDEOJUEGOS))))
+                .body(plataforma);
     }
 
     @PostMapping()
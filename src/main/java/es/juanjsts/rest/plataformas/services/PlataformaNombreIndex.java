@@ -0,0 +1,139 @@
+package es.juanjsts.rest.plataformas.services;
+
+import es.juanjsts.config.cache.ClusterCacheInvalidator;
+import es.juanjsts.config.cache.EntityGenerations;
+import es.juanjsts.rest.plataformas.models.Plataforma;
+import es.juanjsts.rest.plataformas.repositories.PlataformaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Índice en memoria de las plataformas por nombre (sin distinguir mayúsculas): las altas de videojuegos
+// y jugadores validan la plataforma sin ir a la base de datos. Se carga la primera vez que se usa
+// y PlataformaServiceImpl lo actualiza en cada escritura, tras el commit si hay transacción. Las escrituras de otros nodos llegan como
+// incremento de generación de plataformas: se descarta el índice y se vuelve a cargar en el siguiente uso
+@Slf4j
+@Component
+public class PlataformaNombreIndex implements InitializingBean {
+    private final PlataformaRepository plataformaRepository;
+    private final ClusterCacheInvalidator invalidator;
+    private volatile Map<String, Entrada> porNombre;
+
+    public PlataformaNombreIndex(PlataformaRepository plataformaRepository, ClusterCacheInvalidator invalidator) {
+        this.plataformaRepository = plataformaRepository;
+        this.invalidator = invalidator;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        invalidator.onGeneration(entity -> {
+            if (EntityGenerations.PLATAFORMAS.equals(entity)) {
+                invalidate();
+            }
+        });
+    }
+
+    public Optional<Entrada> find(String nombre) {
+        if (nombre == null) {
+            return Optional.empty();
+        }
+        Entrada entrada = indice().get(normalize(nombre));
+        if (entrada != null) {
+            return Optional.of(entrada);
+        }
+        // Un fallo no implica que no exista: puede haberse creado en otro nodo y no haber llegado aún el aviso.
+        // Lo leído ya está confirmado, así que se añade sin esperar a ningún commit
+        return plataformaRepository.findByNombreEqualsIgnoreCase(nombre).map(plataforma -> {
+            Entrada leida = Entrada.of(plataforma);
+            guardar(leida);
+            return leida;
+        });
+    }
+
+    // La entrada se construye ya, con la entidad aún en la transacción; el índice cambia tras el commit
+    public void put(Plataforma plataforma) {
+        Entrada entrada = Entrada.of(plataforma);
+        trasCommit(() -> guardar(entrada));
+    }
+
+    public void remove(Long id) {
+        trasCommit(() -> quitar(id));
+    }
+
+    void invalidate() {
+        synchronized (this) {
+            porNombre = null;
+        }
+        log.debug("Índice de plataformas descartado por un cambio en otro nodo");
+    }
+
+    // Si la transacción se deshace el índice no llega a ver el cambio
+    private void trasCommit(Runnable cambio) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cambio.run();
+                }
+            });
+        } else {
+            cambio.run();
+        }
+    }
+
+    private void guardar(Entrada nueva) {
+        Map<String, Entrada> indice = indice();
+        // Si ha cambiado de nombre se quita la entrada anterior
+        indice.values().removeIf(entrada -> entrada.id().equals(nueva.id()));
+        indice.put(normalize(nueva.nombre()), nueva);
+    }
+
+    private void quitar(Long id) {
+        indice().values().removeIf(entrada -> entrada.id().equals(id));
+    }
+
+    private Map<String, Entrada> indice() {
+        Map<String, Entrada> indice = porNombre;
+        if (indice == null) {
+            synchronized (this) {
+                indice = porNombre;
+                if (indice == null) {
+                    indice = new ConcurrentHashMap<>();
+                    for (Plataforma plataforma : plataformaRepository.findAll()) {
+                        indice.put(normalize(plataforma.getNombre()), Entrada.of(plataforma));
+                    }
+                    log.info("Índice de plataformas cargado con {} plataformas", indice.size());
+                    porNombre = indice;
+                }
+            }
+        }
+        return indice;
+    }
+
+    private static String normalize(String nombre) {
+        return nombre.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public record Entrada(Long id, String nombre, boolean deleted, Long usuarioId) {
+        static Entrada of(Plataforma plataforma) {
+            return new Entrada(
+                    plataforma.getId(),
+                    plataforma.getNombre(),
+                    Boolean.TRUE.equals(plataforma.getIsDeleted()),
+                    plataforma.getUsuario() != null ? plataforma.getUsuario().getId() : null
+            );
+        }
+
+        // Referencia para la clave ajena sin cargar la entidad: solo lleva id y nombre
+        public Plataforma toReference() {
+            return Plataforma.builder().id(id).nombre(nombre).isDeleted(deleted).build();
+        }
+    }
+}
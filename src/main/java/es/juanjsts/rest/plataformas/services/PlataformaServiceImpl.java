@@ -1,5 +1,6 @@
 package es.juanjsts.rest.plataformas.services;
 
+import es.juanjsts.config.cache.EntityGenerations;
 import es.juanjsts.rest.plataformas.dto.PlataformaCreatedDto;
 import es.juanjsts.rest.plataformas.dto.PlataformaUpdateDto;
 import es.juanjsts.rest.plataformas.exceptions.PlataformaConflictException;
@@ -7,6 +8,7 @@ import es.juanjsts.rest.plataformas.exceptions.PlataformaNotFoundException;
 import es.juanjsts.rest.plataformas.mappers.PlataformaMapper;
 import es.juanjsts.rest.plataformas.models.Plataforma;
 import es.juanjsts.rest.plataformas.repositories.PlataformaRepository;
+import es.juanjsts.rest.videojuegos.services.VideojuegoSearchIndex;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,6 +30,9 @@ import java.util.Optional;
 public class PlataformaServiceImpl implements PlataformaService{
     private final PlataformaRepository plataformaRepository;
     private final PlataformaMapper plataformaMapper;
+    private final PlataformaNombreIndex plataformaNombreIndex;
+    private final EntityGenerations entityGenerations;
+    private final VideojuegoSearchIndex videojuegoSearchIndex;
 
     @Override
     public Page<Plataforma> findAll(Optional<String> nombre, Optional<Boolean> isDeleted, Pageable pageable) {
@@ -44,14 +49,14 @@ public class PlataformaServiceImpl implements PlataformaService{
     }
 
     @Override
-    @Cacheable(key = "#nombre")
+    @Cacheable(key = "#nombre", sync = true)
     public Plataforma findByNombre(String nombre) {
         return plataformaRepository.findByNombreEqualsIgnoreCase(nombre)
                 .orElseThrow(() -> new PlataformaNotFoundException(nombre));
     }
 
     @Override
-    @Cacheable(key = "#id")
+    @Cacheable(key = "#id", sync = true)
     public Plataforma findById(Long id) {
         log.info("Buscando plataforma con id: {}", id);
         return plataformaRepository.findById(id)
@@ -65,7 +70,10 @@ public class PlataformaServiceImpl implements PlataformaService{
         plataformaRepository.findByNombreEqualsIgnoreCase(plataforma.getNombre()).ifPresent(tit -> {
             throw new PlataformaConflictException("Ya existe una plataforma con el nombre: " + plataforma.getNombre());
         });
-        return plataformaRepository.save(plataformaMapper.toPlataforma(plataforma));
+        Plataforma nuevaPlataforma = plataformaRepository.save(plataformaMapper.toPlataforma(plataforma));
+        plataformaNombreIndex.put(nuevaPlataforma);
+        entityGenerations.bump(EntityGenerations.PLATAFORMAS);
+        return nuevaPlataforma;
     }
 
     @Override
@@ -77,7 +85,13 @@ public class PlataformaServiceImpl implements PlataformaService{
                 throw new PlataformaConflictException("Ya existe una plataforma con el nombre: " + plataforma.getNombre());
             }
         });
-        return plataformaRepository.save(plataformaMapper.toPlataforma(plataforma, plataformaActual));
+        Plataforma plataformaActualizada = plataformaRepository.save(plataformaMapper.toPlataforma(plataforma, plataformaActual));
+        plataformaNombreIndex.put(plataformaActualizada);
+        if (!plataformaActualizada.getNombre().equals(plataformaActual.getNombre())) {
+            videojuegoSearchIndex.renamePlataforma(id, plataformaActualizada.getNombre());
+        }
+        entityGenerations.bump(EntityGenerations.PLATAFORMAS);
+        return plataformaActualizada;
     }
 
     @Override
@@ -92,6 +106,8 @@ public class PlataformaServiceImpl implements PlataformaService{
             throw new PlataformaConflictException(mensaje);
         } else {
             plataformaRepository.deleteById(id);
+            plataformaNombreIndex.remove(id);
+            entityGenerations.bump(EntityGenerations.PLATAFORMAS);
 
         }
     }
@@ -58,7 +58,7 @@ public class UsersServiceImpl implements UsersService {
     }
 
     @Override
-    @Cacheable(key = "#id")
+    @Cacheable(key = "#id", sync = true)
     public UserInfoResponse findById(Long id) {
         log.info("Buscando el usuario con id: {}", id);
         var user = usersRepository.findById(id).orElseThrow(() -> new UserNotFound(id));
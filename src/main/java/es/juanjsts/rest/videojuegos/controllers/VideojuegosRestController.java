@@ -1,12 +1,17 @@
 package es.juanjsts.rest.videojuegos.controllers;
 
 
+import es.juanjsts.config.cache.EntityGenerations;
+import es.juanjsts.config.cache.HotKeyTracker;
+import es.juanjsts.config.cache.SerializedResponseCache;
+import es.juanjsts.utils.http.EntityTags;
 import es.juanjsts.utils.pagination.PageResponse;
 import es.juanjsts.utils.pagination.PaginationLinksUtils;
 import es.juanjsts.rest.videojuegos.dto.VideojuegoCreateDto;
 import es.juanjsts.rest.videojuegos.dto.VideojuegoResponseDto;
 import es.juanjsts.rest.videojuegos.dto.VideojuegoUpdateDto;
 import es.juanjsts.rest.videojuegos.services.VideojuegosService;
+import es.juanjsts.websockets.notifications.services.SseNotificationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.Parameters;
@@ -17,17 +22,21 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.util.HashMap;
@@ -43,12 +52,17 @@ import java.util.Optional;
 public class VideojuegosRestController {
     private final VideojuegosService videojuegosService;
     private final PaginationLinksUtils paginationLinksUtils;
+    private final SseNotificationService sseNotificationService;
+    private final HotKeyTracker hotKeyTracker;
+    private final SerializedResponseCache serializedResponseCache;
+    private final EntityGenerations entityGenerations;
 
     @Operation(summary = "Obtiene todos los videojuegos", description = "Obtiene una lista de Videojuegos")
     @Parameters({
             @Parameter(name = "nombre", description = "Nombre del videojuego", example = ""),
             @Parameter(name = "plataforma", description = "Plataforma del videojuego", example = ""),
             @Parameter(name = "isDeleted", description = "Si está borrada o no", example = "false"),
+            @Parameter(name = "q", description = "Búsqueda por texto en nombre, género y plataforma, ordenada por relevancia", example = ""),
             @Parameter(name = "page", description = "Número de página", example = "0"),
             @Parameter(name = "size", description = "Tamaño de la página", example = "10"),
             @Parameter(name = "sortBy", description = "Campo de ordenación", example = "id"),
@@ -66,25 +80,59 @@ public class VideojuegosRestController {
             @RequestParam(required = false) Optional<String> nombre,
             @RequestParam(required = false) Optional<String> plataforma,
             @RequestParam(required = false) Optional<Boolean> isDeleted,
+            @RequestParam(required = false) Optional<String> q,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
             @RequestParam(defaultValue = "asc") String direction,
-            HttpServletRequest request) {
+            HttpServletRequest request,
+            WebRequest webRequest) {
         log.info("Buscando videojuegos por nombre: {}, plataforma: {}, isDeleted: {}", nombre, plataforma, isDeleted);
+        // La generación se lee antes de consultar: si cambia durante la consulta el cliente solo revalida de más
+        String etag = EntityTags.listado(EntityGenerations.VIDEOJUEGOS,
+                entityGenerations.current(EntityGenerations.VIDEOJUEGOS), entityGenerations.current(EntityGenerations.PLATAFORMAS));
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         Sort sort = direction.equalsIgnoreCase(Sort.Direction.ASC.name()) ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
         Pageable pageable = PageRequest.of(page, size, sort);
         UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromUriString(request.getRequestURI().toString());
-        Page<VideojuegoResponseDto> pageResult = videojuegosService.findAll(nombre, plataforma, isDeleted, pageable);
+        // Con q se busca en el índice de texto y el orden es el de relevancia, no sortBy
+        Page<VideojuegoResponseDto> pageResult = q.filter(texto -> !texto.isBlank())
+                .map(texto -> videojuegosService.search(texto, isDeleted, PageRequest.of(page, size)))
+                .orElseGet(() -> videojuegosService.findAll(nombre, plataforma, isDeleted, pageable));
         return ResponseEntity.ok()
+                .eTag(etag)
                 .header("link", paginationLinksUtils.createLinkHeader(pageResult,uriBuilder))
                 .body(PageResponse.of(pageResult, sortBy,direction));
     }
 
+    @Operation(summary = "Stream de cambios de videojuegos", description = "Server-Sent Events con las mismas notificaciones que el WebSocket")
+    @Parameter(name = "Last-Event-ID", description = "Última secuencia recibida para reanudar el stream", example = "0")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        log.info("Nuevo cliente SSE de videojuegos, Last-Event-ID: {}", lastEventId);
+        return sseNotificationService.subscribe(lastEventId);
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<VideojuegoResponseDto> getById(@PathVariable Long id){
+    public ResponseEntity<?> getById(@PathVariable Long id){
         log.info("Buscando videojuego con id: {}", id);
-        return ResponseEntity.ok(videojuegosService.findById(id));
+        VideojuegoResponseDto videojuego = videojuegosService.findById(id);
+        // Solo cuentan los ids que existen: los 404 no deben acabar en el calentamiento
+        hotKeyTracker.record(HotKeyTracker.VIDEOJUEGOS, id);
+        // El nombre de la plataforma va en la respuesta, así que forma parte del ETag
+        var respuesta = EntityTags.ok(videojuego.getId(), videojuego.getUpdatedAt(), videojuego.getPlataforma());
+        // Con la cache de JSON activa se escriben los bytes ya serializados sin pasar por Jackson;
+        // el ETag identifica la versión, así que sirve de versión de la entrada
+        if (serializedResponseCache.isEnabled() && videojuego.getUpdatedAt() != null) {
+            String version = EntityTags.of(videojuego.getId(), videojuego.getUpdatedAt(), videojuego.getPlataforma());
+            Resource json = serializedResponseCache.json(SerializedResponseCache.VIDEOJUEGOS, id, version, videojuego);
+            if (json != null) {
+                return respuesta.contentType(MediaType.APPLICATION_JSON).body(json);
+            }
+        }
+        return respuesta.body(videojuego);
     }
 
     @PostMapping()
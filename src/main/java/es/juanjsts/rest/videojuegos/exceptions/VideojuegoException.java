@@ -4,4 +4,9 @@ public abstract class VideojuegoException extends RuntimeException {
     public VideojuegoException(String message) {
         super(message);
     }
+
+    // Sin traza: para errores esperados que se lanzan a menudo, como los ids que se sabe que no existen
+    protected VideojuegoException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
 }
@@ -8,10 +8,31 @@ import java.util.UUID;
 @ResponseStatus(HttpStatus.NOT_FOUND)
 public class VideojuegoNotFoundException extends VideojuegoException {
     public VideojuegoNotFoundException(Long id) {
-        super("Videojuego con id: " + id + " no encontrado");
+        super(mensaje(id));
     }
 
     public VideojuegoNotFoundException(UUID uuid) {
-        super("Videojuego con uuid: " + uuid + " no encontrado");
+        super(mensaje(uuid));
+    }
+
+    private VideojuegoNotFoundException(String message, boolean writableStackTrace) {
+        super(message, writableStackTrace);
+    }
+
+    // Para las claves de la cache negativa: mismo mensaje y estado, sin coste de construir la traza
+    public static VideojuegoNotFoundException sinTraza(Long id) {
+        return new VideojuegoNotFoundException(mensaje(id), false);
+    }
+
+    public static VideojuegoNotFoundException sinTraza(UUID uuid) {
+        return new VideojuegoNotFoundException(mensaje(uuid), false);
+    }
+
+    private static String mensaje(Long id) {
+        return "Videojuego con id: " + id + " no encontrado";
+    }
+
+    private static String mensaje(UUID uuid) {
+        return "Videojuego con uuid: " + uuid + " no encontrado";
     }
 }
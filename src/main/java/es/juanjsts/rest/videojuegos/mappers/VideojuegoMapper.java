@@ -9,7 +9,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 
 @Component
@@ -43,6 +46,21 @@ public class VideojuegoMapper {
                 .build();
     }
 
+    // Campos que cambian al aplicar el update sobre el videojuego actual, los nulos no se modifican
+    public Set<String> camposModificados(VideojuegoUpdateDto videojuegoUpdateDto, Videojuego videojuegoActual) {
+        Set<String> campos = new HashSet<>();
+        if (modificado(videojuegoUpdateDto.getNombre(), videojuegoActual.getNombre())) campos.add("nombre");
+        if (modificado(videojuegoUpdateDto.getGenero(), videojuegoActual.getGenero())) campos.add("genero");
+        if (modificado(videojuegoUpdateDto.getFechaDeCreacion(), videojuegoActual.getFechaDeCreacion())) campos.add("fechaDeCreacion");
+        if (modificado(videojuegoUpdateDto.getAlmacenamiento(), videojuegoActual.getAlmacenamiento())) campos.add("almacenamiento");
+        if (modificado(videojuegoUpdateDto.getCosto(), videojuegoActual.getCosto())) campos.add("costo");
+        return campos;
+    }
+
+    private boolean modificado(Object nuevo, Object actual) {
+        return nuevo != null && !Objects.equals(nuevo, actual);
+    }
+
     public VideojuegoResponseDto toVideojuegoResponseDto(Videojuego videojuego) {
         return VideojuegoResponseDto.builder()
                 .id(videojuego.getId())
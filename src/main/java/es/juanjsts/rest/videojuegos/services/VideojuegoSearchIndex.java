@@ -0,0 +1,284 @@
+package es.juanjsts.rest.videojuegos.services;
+
+import es.juanjsts.cluster.models.CacheInvalidation;
+import es.juanjsts.config.cache.ClusterCacheInvalidator;
+import es.juanjsts.rest.plataformas.models.Plataforma;
+import es.juanjsts.rest.videojuegos.models.Videojuego;
+import es.juanjsts.rest.videojuegos.repositories.VideojuegosRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Índice invertido en memoria de nombre, género y plataforma de los videojuegos para el modo de búsqueda q=.
+// Cada término apunta a los ids que lo contienen con un peso según el campo (nombre > plataforma > género),
+// y al estar ordenado los prefijos se resuelven con un rango. Se reconstruye al arrancar y
+// VideojuegoServiceImpl y PlataformaServiceImpl lo actualizan en cada escritura, tras el commit si hay transacción.
+// Las escrituras de otros nodos llegan como claves invalidadas de las caches de videojuegos y plataformas:
+// se vuelve a leer solo ese videojuego o los de esa plataforma. Si se vacía la región entera se recarga todo
+@Slf4j
+@Component
+public class VideojuegoSearchIndex implements ApplicationRunner, InitializingBean {
+    private static final int PESO_NOMBRE = 3;
+    private static final int PESO_PLATAFORMA = 2;
+    private static final int PESO_GENERO = 1;
+    private static final String CACHE_PLATAFORMAS = "plataformas";
+
+    private final VideojuegosRepository videojuegoRepository;
+    private final ClusterCacheInvalidator invalidator;
+
+    // Una recarga completa construye un índice nuevo y lo publica de una vez: las búsquedas nunca ven uno a medias
+    private volatile Indice indice = Indice.vacio();
+    private volatile boolean cargado;
+
+    public VideojuegoSearchIndex(VideojuegosRepository videojuegoRepository, ClusterCacheInvalidator invalidator) {
+        this.videojuegoRepository = videojuegoRepository;
+        this.invalidator = invalidator;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        invalidator.onInvalidation(this::aplicarRemota);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    public synchronized void rebuild() {
+        Indice nuevo = Indice.vacio();
+        for (Videojuego videojuego : videojuegoRepository.findAll()) {
+            nuevo.indexar(Documento.of(videojuego));
+        }
+        indice = nuevo;
+        cargado = true;
+        log.info("Índice de búsqueda de videojuegos cargado con {} videojuegos y {} términos", nuevo.documentos().size(), nuevo.terminos().size());
+    }
+
+    // El documento se construye ya, con la entidad aún en la transacción; el índice cambia tras el commit
+    public void put(Videojuego videojuego) {
+        Documento documento = Documento.of(videojuego);
+        trasCommit(() -> reindexar(documento));
+    }
+
+    public void remove(Long id) {
+        trasCommit(() -> quitar(id));
+    }
+
+    // Al renombrar una plataforma cambian los términos de todos sus videojuegos
+    public void renamePlataforma(Long plataformaId, String nombre) {
+        trasCommit(() -> renombrar(plataformaId, nombre));
+    }
+
+    // Se recarga en el siguiente uso; con el lock para que una recarga en curso no lo vuelva a dar por cargado
+    public synchronized void invalidate() {
+        cargado = false;
+        log.debug("Índice de búsqueda de videojuegos descartado por un cambio en otro nodo");
+    }
+
+    // Lo que llega de otro nodo ya está confirmado, así que se aplica sin esperar a ningún commit
+    void aplicarRemota(CacheInvalidation invalidation) {
+        boolean videojuegos = VideojuegoServiceImpl.CACHE_NAME.equals(invalidation.region());
+        if (!videojuegos && !CACHE_PLATAFORMAS.equals(invalidation.region())) {
+            return;
+        }
+        if (invalidation.tipo() == CacheInvalidation.Tipo.ALL) {
+            invalidate();
+            return;
+        }
+        // Las plataformas también se cachean por nombre; esas claves no cambian ningún documento
+        if (!(invalidation.decodedKey() instanceof Long id)) {
+            return;
+        }
+        if (videojuegos) {
+            videojuegoRepository.findById(id).map(Documento::of)
+                    .ifPresentOrElse(this::reindexar, () -> quitar(id));
+        } else {
+            videojuegoRepository.findByPlataforma(Plataforma.builder().id(id).build()).stream()
+                    .map(Documento::of)
+                    .forEach(this::reindexar);
+        }
+    }
+
+    // Ids que contienen todos los términos de la consulta (el último también como prefijo), de más a menos relevante
+    public Page<Long> search(String q, Optional<Boolean> isDeleted, Pageable pageable) {
+        Indice actual = cargar();
+        List<String> consulta = tokenize(q);
+        if (consulta.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        Map<Long, Integer> puntos = null;
+        for (int i = 0; i < consulta.size(); i++) {
+            boolean prefijo = i == consulta.size() - 1;
+            Map<Long, Integer> coincidencias = actual.coincidencias(consulta.get(i), prefijo);
+            if (puntos == null) {
+                puntos = coincidencias;
+            } else {
+                puntos.keySet().retainAll(coincidencias.keySet());
+                puntos.replaceAll((id, valor) -> valor + coincidencias.get(id));
+            }
+            if (puntos.isEmpty()) {
+                return Page.empty(pageable);
+            }
+        }
+        List<Long> ids = puntos.entrySet().stream()
+                .filter(entrada -> isDeleted.map(d -> {
+                    Documento documento = actual.documentos().get(entrada.getKey());
+                    return documento != null && documento.deleted() == d;
+                }).orElse(true))
+                .sorted(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .toList();
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(ids, pageable, ids.size());
+        }
+        int desde = (int) Math.min(pageable.getOffset(), ids.size());
+        int hasta = Math.min(desde + pageable.getPageSize(), ids.size());
+        return new PageImpl<>(ids.subList(desde, hasta), pageable, ids.size());
+    }
+
+    public int size() {
+        return indice.documentos().size();
+    }
+
+    // Si la transacción se deshace el índice no llega a ver el cambio
+    private void trasCommit(Runnable cambio) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cambio.run();
+                }
+            });
+        } else {
+            cambio.run();
+        }
+    }
+
+    // Los cambios sueltos se aplican sobre el índice publicado, cuyos mapas admiten lecturas concurrentes
+    private synchronized void reindexar(Documento documento) {
+        Indice actual = cargar();
+        actual.desindexar(documento.id());
+        actual.indexar(documento);
+    }
+
+    private synchronized void quitar(Long id) {
+        cargar().desindexar(id);
+    }
+
+    private synchronized void renombrar(Long plataformaId, String nombre) {
+        Indice actual = cargar();
+        actual.documentos().values().stream()
+                .filter(documento -> plataformaId.equals(documento.plataformaId()))
+                .toList()
+                .forEach(documento -> {
+                    actual.desindexar(documento.id());
+                    actual.indexar(documento.conPlataforma(nombre));
+                });
+    }
+
+    private Indice cargar() {
+        if (!cargado) {
+            synchronized (this) {
+                if (!cargado) {
+                    rebuild();
+                }
+            }
+        }
+        return indice;
+    }
+
+    // Minúsculas, sin acentos y partido por todo lo que no sea letra o número
+    static List<String> tokenize(String texto) {
+        if (texto == null) {
+            return List.of();
+        }
+        String normalizado = Normalizer.normalize(texto, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(normalizado.split("[^\\p{L}\\p{N}]+"))
+                .filter(termino -> !termino.isEmpty())
+                .toList();
+    }
+
+    private record Indice(ConcurrentSkipListMap<String, Map<Long, Integer>> terminos, Map<Long, Documento> documentos) {
+        static Indice vacio() {
+            return new Indice(new ConcurrentSkipListMap<>(), new ConcurrentHashMap<>());
+        }
+
+        void indexar(Documento documento) {
+            documentos.put(documento.id(), documento);
+            documento.terminos().forEach((termino, peso) ->
+                    terminos.computeIfAbsent(termino, k -> new ConcurrentHashMap<>()).put(documento.id(), peso));
+        }
+
+        void desindexar(Long id) {
+            Documento anterior = documentos.remove(id);
+            if (anterior == null) {
+                return;
+            }
+            anterior.terminos().keySet().forEach(termino -> terminos.computeIfPresent(termino, (k, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            }));
+        }
+
+        // Las coincidencias exactas puntúan el doble que las de prefijo
+        Map<Long, Integer> coincidencias(String termino, boolean prefijo) {
+            Map<Long, Integer> coincidencias = new HashMap<>();
+            Map<String, Map<Long, Integer>> rango = prefijo
+                    ? terminos.subMap(termino, true, termino + Character.MAX_VALUE, true)
+                    : terminos.subMap(termino, true, termino, true);
+            rango.forEach((indexado, ids) -> {
+                int factor = indexado.equals(termino) ? 2 : 1;
+                ids.forEach((id, peso) -> coincidencias.merge(id, peso * factor, Math::max));
+            });
+            return coincidencias;
+        }
+    }
+
+    record Documento(Long id, String nombre, String genero, Long plataformaId, String plataforma, boolean deleted) {
+        static Documento of(Videojuego videojuego) {
+            var plataforma = videojuego.getPlataforma();
+            return new Documento(
+                    videojuego.getId(),
+                    videojuego.getNombre(),
+                    videojuego.getGenero(),
+                    plataforma != null ? plataforma.getId() : null,
+                    plataforma != null ? plataforma.getNombre() : null,
+                    Boolean.TRUE.equals(videojuego.getIsDeleted())
+            );
+        }
+
+        Documento conPlataforma(String nombrePlataforma) {
+            return new Documento(id, nombre, genero, plataformaId, nombrePlataforma, deleted);
+        }
+
+        // Cada término se queda con el peso del campo más importante en el que aparece
+        Map<String, Integer> terminos() {
+            Map<String, Integer> terminos = new HashMap<>();
+            tokenize(genero).forEach(termino -> terminos.merge(termino, PESO_GENERO, Math::max));
+            tokenize(plataforma).forEach(termino -> terminos.merge(termino, PESO_PLATAFORMA, Math::max));
+            tokenize(nombre).forEach(termino -> terminos.merge(termino, PESO_NOMBRE, Math::max));
+            return terminos;
+        }
+    }
+}
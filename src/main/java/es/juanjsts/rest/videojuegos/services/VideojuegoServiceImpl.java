@@ -1,11 +1,11 @@
 package es.juanjsts.rest.videojuegos.services;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import es.juanjsts.config.websockets.WebSocketConfig;
-import es.juanjsts.config.websockets.WebSocketHandler;
+import es.juanjsts.config.cache.EntityGenerations;
+import es.juanjsts.config.cache.NegativeCache;
+import es.juanjsts.config.cache.SerializedResponseCache;
+import es.juanjsts.config.cache.UuidCacheIndex;
 import es.juanjsts.rest.plataformas.models.Plataforma;
-import es.juanjsts.rest.plataformas.repositories.PlataformaRepository;
+import es.juanjsts.rest.plataformas.services.PlataformaNombreIndex;
 import es.juanjsts.rest.plataformas.services.PlataformaService;
 import es.juanjsts.rest.videojuegos.dto.VideojuegoCreateDto;
 import es.juanjsts.rest.videojuegos.dto.VideojuegoResponseDto;
@@ -16,49 +16,60 @@ import es.juanjsts.rest.videojuegos.exceptions.VideojuegoNotFoundException;
 import es.juanjsts.rest.videojuegos.mappers.VideojuegoMapper;
 import es.juanjsts.rest.videojuegos.models.Videojuego;
 import es.juanjsts.rest.videojuegos.repositories.VideojuegosRepository;
-import es.juanjsts.websockets.notifications.dto.VideojuegoNotificationResponse;
 import es.juanjsts.websockets.notifications.mappers.VideojuegoNotificationMapper;
 import es.juanjsts.websockets.notifications.models.Notificacion;
+import es.juanjsts.websockets.notifications.models.NotificationTopic;
+import es.juanjsts.websockets.notifications.services.NotificationOutbox;
 import jakarta.persistence.criteria.Join;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
-@CacheConfig(cacheNames = {"videojuegos"})
+@CacheConfig(cacheNames = {VideojuegoServiceImpl.CACHE_NAME})
 @Slf4j
 @Service
-public class VideojuegoServiceImpl implements VideojuegosService, InitializingBean {
+public class VideojuegoServiceImpl implements VideojuegosService {
+    static final String CACHE_NAME = "videojuegos";
+
     private final VideojuegosRepository videojuegoRepository;
     private final VideojuegoMapper videojuegoMapper;
     private final PlataformaService plataformaService;
-    private final PlataformaRepository plataformaRepository;
+    private final PlataformaNombreIndex plataformaNombreIndex;
 
-    private final WebSocketConfig webSocketConfig;
-    private final ObjectMapper objectMapper;
     private final VideojuegoNotificationMapper videojuegoNotificationMapper;
-    private WebSocketHandler webSocketService;
-
-    public void afterPropertiesSet(){
-        this.webSocketService = this.webSocketConfig.webSocketVideojuegosHandler();
-    }
-
-    public void setWebSocketService(WebSocketHandler webSocketHandler) {
-        this.webSocketService = webSocketHandler;
-    }
-
+    private final NotificationOutbox notificationOutbox;
+    private final UuidCacheIndex uuidCacheIndex;
+    private final EntityGenerations entityGenerations;
+    private final NegativeCache negativeCache;
+    private final VideojuegoSearchIndex videojuegoSearchIndex;
+    private final SerializedResponseCache serializedResponseCache;
+
+    @Value("${notifications.updates.delta:false}")
+    private boolean deltaUpdates;
+
+    // Cada cambio de videojuegos incrementa su generación y deja sin uso los listados cacheados
+    @Cacheable(cacheNames = "videojuegos-listados", keyGenerator = "videojuegosListadoKeyGenerator", sync = true)
     @Override
     public Page<VideojuegoResponseDto> findAll(Optional<String> nombre, Optional<String> plataforma, Optional<Boolean> isDeleted, Pageable pageable) {
         log.info("Buscando videojuegos por nombre: {}, genero: {}, isDeleted: {}", nombre, plataforma, isDeleted);
@@ -87,26 +98,62 @@ public class VideojuegoServiceImpl implements VideojuegosService, InitializingBe
                 .map(videojuegoMapper::toVideojuegoResponseDto);
     }
 
-    @Cacheable(key = "#id")
+    // El índice devuelve la página de ids ya ordenada y se cargan todos en una sola consulta por clave primaria;
+    // los ids que ya no existen (borrados en otra transacción) se omiten
+    @Override
+    public Page<VideojuegoResponseDto> search(String q, Optional<Boolean> isDeleted, Pageable pageable) {
+        log.info("Buscando videojuegos por texto: {}, isDeleted: {}", q, isDeleted);
+        Page<Long> ids = videojuegoSearchIndex.search(q, isDeleted, pageable);
+        Map<Long, Videojuego> encontrados = videojuegoRepository.findAllById(ids.getContent()).stream()
+                .collect(Collectors.toMap(Videojuego::getId, Function.identity()));
+        List<VideojuegoResponseDto> contenido = ids.getContent().stream()
+                .map(encontrados::get)
+                .filter(Objects::nonNull)
+                .map(videojuegoMapper::toVideojuegoResponseDto)
+                .toList();
+        return new PageImpl<>(contenido, pageable, ids.getTotalElements());
+    }
+
+    @Cacheable(key = "#id", sync = true)
     @Override
     public VideojuegoResponseDto findById(Long id) {
         log.info("Buscando tarjeta por id {}", id);
-        return videojuegoMapper.toVideojuegoResponseDto(videojuegoRepository.findById(id)
-                .orElseThrow(()-> new VideojuegoNotFoundException(id)));
+        if (negativeCache.isMissing(CACHE_NAME, id)) {
+            throw VideojuegoNotFoundException.sinTraza(id);
+        }
+        var encontrado = videojuegoMapper.toVideojuegoResponseDto(videojuegoRepository.findById(id)
+                .orElseThrow(()-> {
+                    negativeCache.markMissing(CACHE_NAME, id);
+                    return new VideojuegoNotFoundException(id);
+                }));
+        uuidCacheIndex.link(CACHE_NAME, encontrado.getUuid(), id);
+        return encontrado;
     }
 
-    @Cacheable(key = "#id")
+    // Sin @Cacheable: el uuid se resuelve al id con el índice de alias y se usa la misma entrada que findById
     @Override
     public VideojuegoResponseDto findByUuid(String uuid) {
         log.info("Buscando tarjeta por uuid {}", uuid);
+        UUID myUUID;
         try {
-            var myUUID = UUID.fromString(uuid);
-            return videojuegoMapper.toVideojuegoResponseDto(videojuegoRepository.findByUuid(myUUID)
-                    .orElseThrow(()-> new VideojuegoNotFoundException(myUUID)));
-
+            myUUID = UUID.fromString(uuid);
         } catch (IllegalArgumentException e){
             throw new VideojuegoBadUuidException(uuid);
         }
+        var cacheado = uuidCacheIndex.get(CACHE_NAME, myUUID, VideojuegoResponseDto.class);
+        if (cacheado != null) {
+            return cacheado;
+        }
+        if (negativeCache.isMissing(CACHE_NAME, myUUID)) {
+            throw VideojuegoNotFoundException.sinTraza(myUUID);
+        }
+        var encontrado = videojuegoMapper.toVideojuegoResponseDto(videojuegoRepository.findByUuid(myUUID)
+                    .orElseThrow(()-> {
+                        negativeCache.markMissing(CACHE_NAME, myUUID);
+                        return new VideojuegoNotFoundException(myUUID);
+                    }));
+        uuidCacheIndex.put(CACHE_NAME, myUUID, encontrado.getId(), encontrado);
+        return encontrado;
     }
 
     @Override
@@ -128,10 +175,10 @@ public class VideojuegoServiceImpl implements VideojuegosService, InitializingBe
         return videojuegoMapper.toVideojuegoResponseDto(videojuegoEncontrado);
     }
 
-    private Plataforma checkPlataforma(String nombrePlataforma){
+    private PlataformaNombreIndex.Entrada checkPlataforma(String nombrePlataforma){
         log.info("Buscando videojuego por nombre: {}", nombrePlataforma);
-        var plataforma = plataformaRepository.findByNombreEqualsIgnoreCase(nombrePlataforma);
-        if (plataforma.isEmpty() || plataforma.get().getIsDeleted()){
+        var plataforma = plataformaNombreIndex.find(nombrePlataforma);
+        if (plataforma.isEmpty() || plataforma.get().deleted()){
             throw new VideojuegoBadRequestException("La plataforma " + nombrePlataforma + " no existe o está borrado");
         }
         return plataforma.get();
@@ -139,47 +186,64 @@ public class VideojuegoServiceImpl implements VideojuegosService, InitializingBe
 
     @CachePut(key = "#result.id")
     @Override
+    @Transactional
     public VideojuegoResponseDto save(VideojuegoCreateDto videojuegocreateDto) {
         log.info("Guardando videojuego: {}", videojuegocreateDto);
-        Plataforma plataforma = checkPlataforma(videojuegocreateDto.getPlataforma());
+        var plataforma = checkPlataforma(videojuegocreateDto.getPlataforma());
         Videojuego nuevoVideojuego = videojuegoRepository.save(
-                videojuegoMapper.toVideojuego(videojuegocreateDto, plataforma));
+                videojuegoMapper.toVideojuego(videojuegocreateDto, plataforma.toReference()));
         onChange(Notificacion.Tipo.CREATE, nuevoVideojuego);
+        uuidCacheIndex.link(CACHE_NAME, nuevoVideojuego.getUuid(), nuevoVideojuego.getId());
+        negativeCache.clear(CACHE_NAME, nuevoVideojuego.getId(), nuevoVideojuego.getUuid());
+        videojuegoSearchIndex.put(nuevoVideojuego);
+        entityGenerations.bump(CACHE_NAME);
         return videojuegoMapper.toVideojuegoResponseDto(nuevoVideojuego);
     }
 
     @CachePut(key = "#result.id")
     @Override
+    @Transactional
     public VideojuegoResponseDto save(VideojuegoCreateDto videojuegoCreateDto, Long usuarioId){
         log.info("Guardando videojuego: {} de usuarioId: {}", videojuegoCreateDto, usuarioId);
-        Plataforma plataforma = checkPlataforma(videojuegoCreateDto.getPlataforma());
-        var usuario = plataforma.getUsuario();
-        if ((usuario != null) && (!usuario.getId().equals(usuarioId))){
+        var plataforma = checkPlataforma(videojuegoCreateDto.getPlataforma());
+        var propietarioId = plataforma.usuarioId();
+        if ((propietarioId != null) && (!propietarioId.equals(usuarioId))){
             throw new VideojuegoBadRequestException("La usuario no se corresponde con la plataforma");
         }
         Videojuego nuevoVideojuego = videojuegoRepository.save(
-                videojuegoMapper.toVideojuego(videojuegoCreateDto, plataforma));
+                videojuegoMapper.toVideojuego(videojuegoCreateDto, plataforma.toReference()));
         onChange(Notificacion.Tipo.CREATE, nuevoVideojuego);
+        uuidCacheIndex.link(CACHE_NAME, nuevoVideojuego.getUuid(), nuevoVideojuego.getId());
+        negativeCache.clear(CACHE_NAME, nuevoVideojuego.getId(), nuevoVideojuego.getUuid());
+        videojuegoSearchIndex.put(nuevoVideojuego);
+        entityGenerations.bump(CACHE_NAME);
         return videojuegoMapper.toVideojuegoResponseDto(nuevoVideojuego);
     }
 
     @CachePut(key = "#result.id")
     @Override
+    @Transactional
     public VideojuegoResponseDto update(Long id, VideojuegoUpdateDto videojuegoupdateDto) {
         log.info("Actualizando videojuego con id: {} con videojuego: {}", id, videojuegoupdateDto);
         var videojuegoActual = videojuegoRepository.findById(id)
                 .orElseThrow(()-> new VideojuegoNotFoundException(id));
+        var camposModificados = videojuegoMapper.camposModificados(videojuegoupdateDto, videojuegoActual);
 
         Videojuego videojuegoActualizado = videojuegoRepository.save(
                 videojuegoMapper.toVideojuego(videojuegoupdateDto, videojuegoActual)
         );
 
-        onChange(Notificacion.Tipo.UPDATE, videojuegoActualizado);
+        onChange(Notificacion.Tipo.UPDATE, videojuegoActualizado, camposModificados);
+        uuidCacheIndex.link(CACHE_NAME, videojuegoActualizado.getUuid(), videojuegoActualizado.getId());
+        videojuegoSearchIndex.put(videojuegoActualizado);
+        serializedResponseCache.evict(SerializedResponseCache.VIDEOJUEGOS, id);
+        entityGenerations.bump(CACHE_NAME);
         return videojuegoMapper.toVideojuegoResponseDto(videojuegoActualizado);
     }
 
     @CachePut(key = "#result.id")
     @Override
+    @Transactional
     public VideojuegoResponseDto update(Long id, VideojuegoUpdateDto videojuegoupdateDto, Long usuarioId){
         log.info("Actualizando videojuego por id: {}", id);
         var videojuegoActual = videojuegoRepository.findById(id).orElseThrow(()-> new VideojuegoNotFoundException(id));
@@ -187,23 +251,34 @@ public class VideojuegoServiceImpl implements VideojuegosService, InitializingBe
         if ((usuario != null) && (!usuario.getId().equals(usuarioId))){
             throw new VideojuegoBadRequestException("El videojuego " + videojuegoupdateDto.getNombre() + " no pertenece al usuario");
         }
+        var camposModificados = videojuegoMapper.camposModificados(videojuegoupdateDto, videojuegoActual);
         Videojuego videojuegoUpdated = videojuegoRepository.save(
                 videojuegoMapper.toVideojuego(videojuegoupdateDto, videojuegoActual));
-        onChange(Notificacion.Tipo.UPDATE, videojuegoUpdated);
+        onChange(Notificacion.Tipo.UPDATE, videojuegoUpdated, camposModificados);
+        uuidCacheIndex.link(CACHE_NAME, videojuegoUpdated.getUuid(), videojuegoUpdated.getId());
+        videojuegoSearchIndex.put(videojuegoUpdated);
+        serializedResponseCache.evict(SerializedResponseCache.VIDEOJUEGOS, id);
+        entityGenerations.bump(CACHE_NAME);
         return videojuegoMapper.toVideojuegoResponseDto(videojuegoUpdated);
     }
 
     @CacheEvict(key = "#id")
     @Override
+    @Transactional
     public void deleteById(Long id) {
         log.debug("Eliminando videojuego con id: {}", id);
         Videojuego videojuegoDeleted = videojuegoRepository.findById(id).orElseThrow(()-> new VideojuegoNotFoundException(id));
         videojuegoRepository.deleteById(id);
         onChange(Notificacion.Tipo.DELETE, videojuegoDeleted);
+        uuidCacheIndex.evict(CACHE_NAME, videojuegoDeleted.getUuid());
+        videojuegoSearchIndex.remove(id);
+        serializedResponseCache.evict(SerializedResponseCache.VIDEOJUEGOS, id);
+        entityGenerations.bump(CACHE_NAME);
     }
 
     @CacheEvict(key = "#id")
     @Override
+    @Transactional
     public void deleteById(Long id, Long usuarioId){
         log.debug("Eliminando videojuego con id: {}", id);
         Videojuego videojuegoDeleted = videojuegoRepository.findById(id).orElseThrow(()-> new VideojuegoNotFoundException(id));
@@ -213,42 +288,32 @@ public class VideojuegoServiceImpl implements VideojuegosService, InitializingBe
         }
         videojuegoRepository.deleteById(id);
         onChange(Notificacion.Tipo.DELETE, videojuegoDeleted);
+        uuidCacheIndex.evict(CACHE_NAME, videojuegoDeleted.getUuid());
+        videojuegoSearchIndex.remove(id);
+        serializedResponseCache.evict(SerializedResponseCache.VIDEOJUEGOS, id);
+        entityGenerations.bump(CACHE_NAME);
     }
 
     void onChange(Notificacion.Tipo tipo, Videojuego data){
+        onChange(tipo, data, null);
+    }
+
+    void onChange(Notificacion.Tipo tipo, Videojuego data, Set<String> camposModificados){
         log.debug("Servicio de productos onChange con tipo: {} y datos: {}", tipo, data);
 
-        if (webSocketService == null){
-            log.warn("No se ha podido enviar la notificación a los clientes ws, no se ha encontrado el servicio");
-            webSocketService = this.webSocketConfig.webSocketVideojuegosHandler();
-        }
+        // Con deltaUpdates los UPDATE solo llevan id, versión y campos modificados
+        Object payload = deltaUpdates && camposModificados != null
+                ? videojuegoNotificationMapper.toVideojuegoDeltaNotificationDto(data, camposModificados)
+                : videojuegoNotificationMapper.toVideojuegoNotificationDto(data);
+        Notificacion<Object> notificacion = new Notificacion<>(
+                "VIDEOJUEGOS",
+                tipo,
+                payload,
+                LocalDateTime.now().toString()
+        );
+        NotificationTopic topic = NotificationTopic.of(data.getId(), data.getPlataforma().getNombre(), data.getGenero());
 
-        try {
-            Notificacion<VideojuegoNotificationResponse> notificacion = new Notificacion<>(
-                    "VIDEOJUEGOS",
-                    tipo,
-                    videojuegoNotificationMapper.toVideojuegoNotificationDto(data),
-                    LocalDateTime.now().toString()
-            );
-
-            String json = objectMapper.writeValueAsString((notificacion));
-
-            log.info("Enviando mensaje a los clientes ws");
-
-            Thread senderThread = new Thread(() -> {
-                try{
-                    webSocketService.sendMessage(json);
-                } catch (Exception e){
-                    log.error("Error al enviar el mensaje a través del servicio webSocket", e);
-                }
-            });
-
-            senderThread.setName("WebSocketVideojuego-" + data.getId());
-            senderThread.setDaemon(true);
-            senderThread.start();
-            log.info("Hilo de websocket iniciado: {}", data.getId());
-        } catch (JsonProcessingException e){
-            log.error("Error al convertir la notificación a JSON", e);
-        }
+        // Se guarda en el outbox dentro de la transacción del cambio, el relay la envía tras el commit
+        notificationOutbox.record("VIDEOJUEGOS-" + data.getId(), notificacion, topic);
     }
 }
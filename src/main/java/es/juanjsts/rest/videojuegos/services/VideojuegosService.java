@@ -11,6 +11,9 @@ import java.util.Optional;
 public interface VideojuegosService {
     Page<VideojuegoResponseDto> findAll(Optional<String> nombre, Optional<String> plataforma, Optional<Boolean> isDeleted, Pageable pageable);
 
+    // Búsqueda por texto en nombre, género y plataforma, ordenada por relevancia
+    Page<VideojuegoResponseDto> search(String q, Optional<Boolean> isDeleted, Pageable pageable);
+
     VideojuegoResponseDto findById(Long id);
 
     VideojuegoResponseDto findByUuid(String uuid);
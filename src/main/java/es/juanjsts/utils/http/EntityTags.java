@@ -0,0 +1,53 @@
+package es.juanjsts.utils.http;
+
+import org.springframework.http.ResponseEntity;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+// ETags y Last-Modified para los GET condicionales de los controladores
+public final class EntityTags {
+    // Las generaciones vuelven a 0 en cada arranque, así que sus ETags llevan el instante de arranque
+    private static final String ARRANQUE = Long.toHexString(System.currentTimeMillis());
+
+    private EntityTags() {}
+
+    // 200 con ETag y Last-Modified; con If-None-Match o If-Modified-Since que coincidan Spring responde 304 sin cuerpo
+    public static ResponseEntity.BodyBuilder ok(Long id, LocalDateTime updatedAt, Object... relacionados) {
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (id != null && updatedAt != null) {
+            respuesta.eTag(of(id, updatedAt, relacionados)).lastModified(lastModified(updatedAt));
+        }
+        return respuesta;
+    }
+
+    // ETag fuerte de una entidad: id y updatedAt, más un hash de los datos de otras entidades que salen en su JSON.
+    // updatedAt va con nanosegundos: dos escrituras en el mismo milisegundo dan ETags distintos
+    public static String of(Long id, LocalDateTime updatedAt, Object... relacionados) {
+        String etag = id + "-" + version(updatedAt);
+        return relacionados.length == 0 ? etag : etag + "-" + Integer.toHexString(Objects.hash(relacionados));
+    }
+
+    // Last-Modified solo admite segundos; se trunca a milisegundos y Spring compara If-Modified-Since a segundos
+    public static long lastModified(LocalDateTime updatedAt) {
+        return updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static String version(LocalDateTime updatedAt) {
+        Instant instante = updatedAt.atZone(ZoneId.systemDefault()).toInstant();
+        return instante.getEpochSecond() + "." + instante.getNano();
+    }
+
+    // ETag de un listado: las generaciones de las entidades que aparecen en él (la URL ya distingue filtros y página)
+    public static String listado(String region, long... generaciones) {
+        return region + "-" + ARRANQUE + "-" + Arrays.stream(generaciones).mapToObj(String::valueOf).collect(Collectors.joining("-"));
+    }
+
+    public static String generacion(long generacion) {
+        return ARRANQUE + "-" + generacion;
+    }
+}
@@ -0,0 +1,39 @@
+package es.juanjsts.websockets.notifications.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+import java.util.List;
+import java.util.Locale;
+
+// Mensaje del cliente ws: {"action":"subscribe","plataformas":["Nintendo"],"generos":["Party"],"ids":[1]}
+// o {"action":"resume","lastSeq":42} para recibir los cambios perdidos desde esa secuencia.
+// {"action":"subscribe"} sin filtros vuelve a recibirlo todo; {"action":"unsubscribe"} sin filtros deja de recibir
+public record SubscriptionRequest(
+        Action action,
+        List<String> plataformas,
+        List<String> generos,
+        List<Long> ids,
+        Long lastSeq
+) {
+    public enum Action {
+        SUBSCRIBE, UNSUBSCRIBE, RESUME;
+
+        // Los clientes mandan la acción en minúsculas; @JsonFormat en el componente del record no se aplica al enum
+        @JsonCreator
+        public static Action of(String value) {
+            return value == null ? null : valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    public List<String> plataformas() {
+        return plataformas != null ? plataformas : List.of();
+    }
+
+    public List<String> generos() {
+        return generos != null ? generos : List.of();
+    }
+
+    public List<Long> ids() {
+        return ids != null ? ids : List.of();
+    }
+}
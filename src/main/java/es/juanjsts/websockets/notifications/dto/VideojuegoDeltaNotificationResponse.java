@@ -0,0 +1,54 @@
+package es.juanjsts.websockets.notifications.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import es.juanjsts.websockets.notifications.models.NotificationDelta;
+
+// Solo se serializan el id, la versión (updatedAt) y los campos que han cambiado
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record VideojuegoDeltaNotificationResponse(
+        Long id,
+        String version,
+        String nombre,
+        String genero,
+        String almacenamiento,
+        String fechaDeCreacion,
+        Double costo
+) implements NotificationDelta {
+
+    // Solo de salida: al leer el payload del outbox o del cluster se ignora
+    @JsonProperty(value = "delta", access = JsonProperty.Access.READ_ONLY)
+    public boolean isDelta() {
+        return true;
+    }
+
+    @Override
+    public Object mergeInto(Object anterior) {
+        if (anterior instanceof VideojuegoDeltaNotificationResponse previo) {
+            return new VideojuegoDeltaNotificationResponse(
+                    id,
+                    version,
+                    nombre != null ? nombre : previo.nombre(),
+                    genero != null ? genero : previo.genero(),
+                    almacenamiento != null ? almacenamiento : previo.almacenamiento(),
+                    fechaDeCreacion != null ? fechaDeCreacion : previo.fechaDeCreacion(),
+                    costo != null ? costo : previo.costo()
+            );
+        }
+        if (anterior instanceof VideojuegoNotificationResponse completo) {
+            return new VideojuegoNotificationResponse(
+                    completo.id(),
+                    nombre != null ? nombre : completo.nombre(),
+                    genero != null ? genero : completo.genero(),
+                    almacenamiento != null ? almacenamiento : completo.almacenamiento(),
+                    completo.plataforma(),
+                    fechaDeCreacion != null ? fechaDeCreacion : completo.fechaDeCreacion(),
+                    costo != null ? costo : completo.costo(),
+                    completo.createdAt(),
+                    version,
+                    completo.uuid()
+            );
+        }
+        return this;
+    }
+}
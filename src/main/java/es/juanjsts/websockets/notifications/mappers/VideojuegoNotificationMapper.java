@@ -1,9 +1,12 @@
 package es.juanjsts.websockets.notifications.mappers;
 
 import es.juanjsts.rest.videojuegos.models.Videojuego;
+import es.juanjsts.websockets.notifications.dto.VideojuegoDeltaNotificationResponse;
 import es.juanjsts.websockets.notifications.dto.VideojuegoNotificationResponse;
 import org.springframework.stereotype.Component;
 
+import java.util.Set;
+
 @Component
 public class VideojuegoNotificationMapper {
     public VideojuegoNotificationResponse toVideojuegoNotificationDto(Videojuego videojuego) {
@@ -20,4 +23,16 @@ public class VideojuegoNotificationMapper {
                 videojuego.getUuid().toString()
         );
     }
+
+    public VideojuegoDeltaNotificationResponse toVideojuegoDeltaNotificationDto(Videojuego videojuego, Set<String> campos) {
+        return new VideojuegoDeltaNotificationResponse(
+                videojuego.getId(),
+                videojuego.getUpdatedAt().toString(),
+                campos.contains("nombre") ? videojuego.getNombre() : null,
+                campos.contains("genero") ? videojuego.getGenero() : null,
+                campos.contains("almacenamiento") ? videojuego.getAlmacenamiento() : null,
+                campos.contains("fechaDeCreacion") ? videojuego.getFechaDeCreacion().toString() : null,
+                campos.contains("costo") ? videojuego.getCosto() : null
+        );
+    }
 }
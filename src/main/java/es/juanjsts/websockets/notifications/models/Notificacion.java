@@ -1,10 +1,36 @@
 package es.juanjsts.websockets.notifications.models;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record Notificacion<T> (
         String entity,
         Tipo type,
         T data,
-        String createdAt
+        String createdAt,
+        Long seq
 ){
-    public enum Tipo {CREATE, UPDATE, DELETE}
+    public enum Tipo {CREATE, UPDATE, DELETE, BATCH, RESYNC}
+
+    public Notificacion(String entity, Tipo type, T data, String createdAt) {
+        this(entity, type, data, createdAt, null);
+    }
+
+    // El número de secuencia se asigna al publicar, es creciente y permite reanudar el stream
+    public Notificacion<T> withSeq(long seq) {
+        return new Notificacion<>(entity, type, data, createdAt, seq);
+    }
+
+    // Variante agrupada: varias notificaciones de la misma entidad en un único frame
+    public static Notificacion<List<Notificacion<?>>> batch(String entity, List<Notificacion<?>> notificaciones) {
+        return new Notificacion<>(entity, Tipo.BATCH, notificaciones, LocalDateTime.now().toString());
+    }
+
+    // El cliente se ha perdido más cambios de los que se guardan y debe recargar el catálogo
+    public static Notificacion<Void> resync(String entity, long lastSeq) {
+        return new Notificacion<>(entity, Tipo.RESYNC, null, LocalDateTime.now().toString(), lastSeq);
+    }
 }
@@ -0,0 +1,7 @@
+package es.juanjsts.websockets.notifications.models;
+
+// Payload parcial de un UPDATE que solo lleva los campos modificados
+public interface NotificationDelta {
+    // Aplica este cambio sobre el payload anterior de la misma entidad (completo o parcial)
+    Object mergeInto(Object anterior);
+}
@@ -0,0 +1,38 @@
+package es.juanjsts.websockets.notifications.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Notificación pendiente de enviar, se guarda en la misma transacción que el cambio de la entidad
+@Builder
+@ToString
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "NOTIFICATION_OUTBOX")
+public class NotificationOutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_key", nullable = false, length = 100)
+    private String key;
+    @Lob
+    @Column(nullable = false)
+    private String notificacion;
+    // Filas anteriores sin tipo: el payload se lee como mapa
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payload_type", length = 30)
+    private NotificationPayload payloadType;
+    @Lob
+    @Column(nullable = false)
+    private String topic;
+
+    @Column(updatable = false, nullable = false, columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
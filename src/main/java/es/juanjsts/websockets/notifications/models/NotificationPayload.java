@@ -0,0 +1,48 @@
+package es.juanjsts.websockets.notifications.models;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.juanjsts.websockets.notifications.dto.VideojuegoDeltaNotificationResponse;
+import es.juanjsts.websockets.notifications.dto.VideojuegoNotificationResponse;
+
+// Clase del payload de una notificación. Se guarda junto al JSON en el outbox y en los eventos del cluster
+// para leerlo con su tipo y no como un mapa, que es lo que necesita la agrupación para combinar deltas
+public enum NotificationPayload {
+    VIDEOJUEGO(VideojuegoNotificationResponse.class),
+    VIDEOJUEGO_DELTA(VideojuegoDeltaNotificationResponse.class),
+    OTRO(Object.class);
+
+    private final Class<?> clase;
+
+    NotificationPayload(Class<?> clase) {
+        this.clase = clase;
+    }
+
+    public static NotificationPayload of(Notificacion<?> notificacion) {
+        Object data = notificacion.data();
+        if (data instanceof VideojuegoDeltaNotificationResponse) {
+            return VIDEOJUEGO_DELTA;
+        }
+        if (data instanceof VideojuegoNotificationResponse) {
+            return VIDEOJUEGO;
+        }
+        return OTRO;
+    }
+
+    public Notificacion<?> read(ObjectMapper objectMapper, String json) throws JsonProcessingException {
+        return objectMapper.readValue(json, tipo(objectMapper));
+    }
+
+    // Los eventos recibidos por UDP llegan con el payload como mapa; los del bus en proceso ya tienen su clase
+    public Notificacion<?> convert(ObjectMapper objectMapper, Notificacion<?> notificacion) {
+        if (this == OTRO || clase.isInstance(notificacion.data())) {
+            return notificacion;
+        }
+        return objectMapper.convertValue(notificacion, tipo(objectMapper));
+    }
+
+    private JavaType tipo(ObjectMapper objectMapper) {
+        return objectMapper.getTypeFactory().constructParametricType(Notificacion.class, clase);
+    }
+}
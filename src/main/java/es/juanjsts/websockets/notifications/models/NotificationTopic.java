@@ -0,0 +1,36 @@
+package es.juanjsts.websockets.notifications.models;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+// Atributos de una notificación por los que se pueden suscribir los clientes ws
+public record NotificationTopic(
+        Set<Long> ids,
+        Set<String> plataformas,
+        Set<String> generos
+) {
+    public static NotificationTopic of(Long id, String plataforma, String genero) {
+        Set<Long> ids = new HashSet<>();
+        Set<String> plataformas = new HashSet<>();
+        Set<String> generos = new HashSet<>();
+        if (id != null) ids.add(id);
+        if (plataforma != null) plataformas.add(normalize(plataforma));
+        if (genero != null) generos.add(normalize(genero));
+        return new NotificationTopic(ids, plataformas, generos);
+    }
+
+    public NotificationTopic merge(NotificationTopic other) {
+        Set<Long> ids = new HashSet<>(this.ids);
+        Set<String> plataformas = new HashSet<>(this.plataformas);
+        Set<String> generos = new HashSet<>(this.generos);
+        ids.addAll(other.ids);
+        plataformas.addAll(other.plataformas);
+        generos.addAll(other.generos);
+        return new NotificationTopic(ids, plataformas, generos);
+    }
+
+    public static String normalize(String valor) {
+        return valor.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,12 @@
+package es.juanjsts.websockets.notifications.repositories;
+
+import es.juanjsts.websockets.notifications.models.NotificationOutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutboxEvent, Long> {
+    // Los más antiguos primero para mantener el orden de los cambios
+    List<NotificationOutboxEvent> findAllByOrderByIdAsc(Pageable pageable);
+}
@@ -0,0 +1,12 @@
+package es.juanjsts.websockets.notifications.services;
+
+import es.juanjsts.websockets.notifications.models.Notificacion;
+import es.juanjsts.websockets.notifications.models.NotificationTopic;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface NotificationBroadcaster {
+    // Se completa cuando la notificación (sola, agrupada o en un lote) se ha entregado a los clientes ws y SSE
+    // de este nodo; termina con error si el dispatcher la descarta
+    CompletableFuture<Void> broadcast(String key, Notificacion<?> notificacion, NotificationTopic topic);
+}
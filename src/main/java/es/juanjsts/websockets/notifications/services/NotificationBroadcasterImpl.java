@@ -0,0 +1,220 @@
+package es.juanjsts.websockets.notifications.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.juanjsts.cluster.models.ClusterEvent;
+import es.juanjsts.cluster.services.ClusterBus;
+import es.juanjsts.config.websockets.WebSocketConfig;
+import es.juanjsts.config.websockets.WebSocketSender;
+import es.juanjsts.websockets.notifications.models.Notificacion;
+import es.juanjsts.websockets.notifications.models.NotificationDelta;
+import es.juanjsts.websockets.notifications.models.NotificationTopic;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+public class NotificationBroadcasterImpl implements NotificationBroadcaster, InitializingBean, DisposableBean {
+    private final WebSocketConfig webSocketConfig;
+    private final ObjectMapper objectMapper;
+    private final NotificationDispatcher notificationDispatcher;
+    private final NotificationReplayBuffer replayBuffer;
+    private final SseNotificationService sseNotificationService;
+    private final ClusterBus clusterBus;
+    private final NotificationMetrics notificationMetrics;
+    private final boolean coalescingEnabled;
+    private final long coalescingWindowMs;
+
+    private WebSocketSender webSocketService;
+    private ScheduledExecutorService scheduler;
+
+    // Notificaciones pendientes de la ventana actual, una por clave y en orden de llegada
+    private final Map<String, Pendiente> pendientes = new LinkedHashMap<>();
+    private final AtomicLong batches = new AtomicLong();
+
+    public NotificationBroadcasterImpl(
+            WebSocketConfig webSocketConfig,
+            ObjectMapper objectMapper,
+            NotificationDispatcher notificationDispatcher,
+            NotificationReplayBuffer replayBuffer,
+            SseNotificationService sseNotificationService,
+            ClusterBus clusterBus,
+            NotificationMetrics notificationMetrics,
+            @Value("${notifications.coalescing.enabled:false}") boolean coalescingEnabled,
+            @Value("${notifications.coalescing.window-ms:50}") long coalescingWindowMs) {
+        this.webSocketConfig = webSocketConfig;
+        this.objectMapper = objectMapper;
+        this.notificationDispatcher = notificationDispatcher;
+        this.replayBuffer = replayBuffer;
+        this.sseNotificationService = sseNotificationService;
+        this.clusterBus = clusterBus;
+        this.notificationMetrics = notificationMetrics;
+        this.coalescingEnabled = coalescingEnabled;
+        this.coalescingWindowMs = coalescingWindowMs;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        this.webSocketService = this.webSocketConfig.webSocketVideojuegosHandler();
+        // Los cambios hechos en otros nodos se notifican a los clientes conectados a este
+        clusterBus.subscribe(this::onClusterEvent);
+        if (coalescingEnabled) {
+            log.info("Agrupación de notificaciones activada con ventana de {} ms", coalescingWindowMs);
+            scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("notificaciones-ventana").factory());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            flush();
+        }
+    }
+
+    public void setWebSocketService(WebSocketSender webSocketService) {
+        this.webSocketService = webSocketService;
+    }
+
+    @Override
+    public CompletableFuture<Void> broadcast(String key, Notificacion<?> notificacion, NotificationTopic topic) {
+        clusterBus.publish(key, notificacion, topic);
+        return broadcastLocal(key, notificacion, topic);
+    }
+
+    private void onClusterEvent(ClusterEvent event) {
+        // Los eventos de invalidación de caches no llevan notificación
+        if (event.notificacion() == null) {
+            return;
+        }
+        log.debug("Notificación {} recibida del nodo {}", event.id(), event.nodeId());
+        Notificacion<?> notificacion = event.payload() != null
+                ? event.payload().convert(objectMapper, event.notificacion())
+                : event.notificacion();
+        broadcastLocal(event.key(), notificacion, event.topic());
+    }
+
+    private CompletableFuture<Void> broadcastLocal(String key, Notificacion<?> notificacion, NotificationTopic topic) {
+        if (!coalescingEnabled) {
+            return enviar(key, notificacion, topic, null);
+        }
+        CompletableFuture<Void> aviso = new CompletableFuture<>();
+        synchronized (pendientes) {
+            boolean abrirVentana = pendientes.isEmpty();
+            pendientes.merge(key, new Pendiente(key, notificacion, topic, List.of(aviso)), Pendiente::combinar);
+            if (abrirVentana) {
+                scheduler.schedule(this::flush, coalescingWindowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        return aviso;
+    }
+
+    void flush() {
+        List<Pendiente> lote;
+        synchronized (pendientes) {
+            if (pendientes.isEmpty()) {
+                return;
+            }
+            lote = new ArrayList<>(pendientes.values());
+            pendientes.clear();
+        }
+
+        Map<String, List<Pendiente>> porEntidad = new LinkedHashMap<>();
+        for (Pendiente pendiente : lote) {
+            porEntidad.computeIfAbsent(pendiente.notificacion().entity(), k -> new ArrayList<>()).add(pendiente);
+        }
+
+        porEntidad.forEach((entity, items) -> {
+            if (items.size() == 1) {
+                Pendiente unico = items.getFirst();
+                avisar(enviar(unico.key(), unico.notificacion(), unico.topic(), null), unico.avisos());
+                return;
+            }
+            List<Notificacion<?>> notificaciones = new ArrayList<>(items.size());
+            List<NotificationTopic> topics = new ArrayList<>(items.size());
+            List<CompletableFuture<Void>> avisos = new ArrayList<>(items.size());
+            NotificationTopic topic = items.getFirst().topic();
+            for (Pendiente item : items) {
+                notificaciones.add(item.notificacion());
+                topics.add(item.topic());
+                avisos.addAll(item.avisos());
+                topic = topic.merge(item.topic());
+            }
+            log.debug("Enviando lote de {} notificaciones de {}", notificaciones.size(), entity);
+            var batch = Notificacion.batch(entity, notificaciones);
+            avisar(enviar("BATCH-" + entity + "-" + batches.incrementAndGet(), batch, topic, new NotificationReplayBuffer.Lote(batch, topics)), avisos);
+        });
+    }
+
+    private static void avisar(CompletableFuture<Void> envio, List<CompletableFuture<Void>> avisos) {
+        envio.whenComplete((ok, error) -> avisos.forEach(aviso -> {
+            if (error == null) {
+                aviso.complete(null);
+            } else {
+                aviso.completeExceptionally(error);
+            }
+        }));
+    }
+
+    private CompletableFuture<Void> enviar(String key, Notificacion<?> notificacion, NotificationTopic topic, NotificationReplayBuffer.Lote lote) {
+        try {
+            // Se serializa una única vez por cambio, el mismo frame va a los clientes ws y SSE
+            NotificationReplayBuffer.Entry entry = replayBuffer.append(seq -> {
+                long inicio = System.nanoTime();
+                String json = objectMapper.writeValueAsString(notificacion.withSeq(seq));
+                notificationMetrics.recordFrameSerialization(inicio);
+                return json;
+            }, topic, lote);
+
+            log.info("Enviando mensaje a los clientes ws y SSE");
+
+            WebSocketSender sender = webSocketService;
+            return notificationDispatcher.publish(key, () -> {
+                try{
+                    sender.sendMessage(entry);
+                } catch (Exception e){
+                    log.error("Error al enviar el mensaje a través del servicio webSocket", e);
+                }
+                sseNotificationService.send(entry);
+            });
+        } catch (IOException e){
+            // No se podrá enviar nunca: se da por terminada para que el outbox no la reintente
+            log.error("Error al convertir la notificación a JSON", e);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private record Pendiente(String key, Notificacion<?> notificacion, NotificationTopic topic, List<CompletableFuture<Void>> avisos) {
+        // Varios cambios de la misma clave se quedan en uno con los últimos datos;
+        // si el primero fue un CREATE el cliente aún no lo ha visto y se mantiene como CREATE.
+        // Un UPDATE parcial se aplica sobre los datos anteriores para no perder campos.
+        static Pendiente combinar(Pendiente anterior, Pendiente nuevo) {
+            Notificacion<?> ultima = nuevo.notificacion();
+            Object data = ultima.data() instanceof NotificationDelta delta
+                    ? delta.mergeInto(anterior.notificacion().data())
+                    : ultima.data();
+            Notificacion.Tipo tipo = anterior.notificacion().type() == Notificacion.Tipo.CREATE && ultima.type() == Notificacion.Tipo.UPDATE
+                    ? Notificacion.Tipo.CREATE
+                    : ultima.type();
+            if (data != ultima.data() || tipo != ultima.type()) {
+                ultima = new Notificacion<>(ultima.entity(), tipo, data, ultima.createdAt());
+            }
+            List<CompletableFuture<Void>> avisos = new ArrayList<>(anterior.avisos());
+            avisos.addAll(nuevo.avisos());
+            return new Pendiente(nuevo.key(), ultima, anterior.topic().merge(nuevo.topic()), avisos);
+        }
+    }
+}
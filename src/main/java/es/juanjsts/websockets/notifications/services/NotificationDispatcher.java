@@ -0,0 +1,17 @@
+package es.juanjsts.websockets.notifications.services;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface NotificationDispatcher {
+    // Se completa cuando un hilo del dispatcher ha ejecutado el envío, o la que lo sustituyó al agrupar;
+    // termina con RejectedExecutionException si se descarta
+    CompletableFuture<Void> publish(String key, Runnable envio);
+
+    int getQueueDepth();
+
+    long getDroppedCount();
+
+    long getCoalescedCount();
+
+    enum OverflowPolicy {DROP_OLDEST, BLOCK, COALESCE}
+}
@@ -0,0 +1,202 @@
+package es.juanjsts.websockets.notifications.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Slf4j
+@Service
+public class NotificationDispatcherImpl implements NotificationDispatcher, InitializingBean, DisposableBean {
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final int workers;
+
+    // Cola acotada: un único lock protege la cola y el índice de envíos pendientes por clave
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Deque<Envio> cola = new ArrayDeque<>();
+    private final Map<String, Envio> pendientes = new HashMap<>();
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final List<Thread> hilos = new ArrayList<>();
+    private volatile boolean running = true;
+
+    public NotificationDispatcherImpl(
+            @Value("${notifications.queue.capacity:1024}") int capacity,
+            @Value("${notifications.queue.overflow-policy:DROP_OLDEST}") OverflowPolicy overflowPolicy,
+            @Value("${notifications.workers:1}") int workers) {
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.workers = workers;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        log.info("Iniciando dispatcher de notificaciones: capacidad {}, política {}, hilos {}", capacity, overflowPolicy, workers);
+        for (int i = 0; i < workers; i++) {
+            hilos.add(Thread.ofVirtual().name("notificaciones-" + i).start(this::procesar));
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        lock.lock();
+        try {
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Thread hilo : hilos) {
+            hilo.join(TimeUnit.SECONDS.toMillis(1));
+        }
+        log.info("Dispatcher de notificaciones detenido, descartadas: {}, agrupadas: {}", dropped.get(), coalesced.get());
+    }
+
+    @Override
+    public CompletableFuture<Void> publish(String key, Runnable envio) {
+        CompletableFuture<Void> aviso = new CompletableFuture<>();
+        if (!running) {
+            log.warn("Dispatcher detenido, se descarta la notificación {}", key);
+            dropped.incrementAndGet();
+            aviso.completeExceptionally(new RejectedExecutionException("Dispatcher detenido"));
+            return aviso;
+        }
+        lock.lock();
+        try {
+            if (cola.size() >= capacity) {
+                switch (overflowPolicy) {
+                    case BLOCK -> {
+                        while (cola.size() >= capacity && running) {
+                            notFull.await();
+                        }
+                        // Si la espera termina porque se detiene el dispatcher no hay hueco: se descarta
+                        if (!running) {
+                            dropped.incrementAndGet();
+                            log.warn("Dispatcher detenido esperando hueco, se descarta la notificación {}", key);
+                            aviso.completeExceptionally(new RejectedExecutionException("Dispatcher detenido"));
+                            return aviso;
+                        }
+                    }
+                    case COALESCE -> {
+                        Envio pendiente = pendientes.get(key);
+                        if (pendiente != null) {
+                            // Sustituimos el envío pendiente, conserva su posición en la cola
+                            pendiente.tarea = envio;
+                            pendiente.avisos.add(aviso);
+                            coalesced.incrementAndGet();
+                            return aviso;
+                        }
+                        descartarMasAntiguo();
+                    }
+                    case DROP_OLDEST -> descartarMasAntiguo();
+                }
+            }
+            Envio nuevo = new Envio(key, envio);
+            nuevo.avisos.add(aviso);
+            cola.addLast(nuevo);
+            pendientes.put(key, nuevo);
+            notEmpty.signal();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.incrementAndGet();
+            log.warn("Interrumpido esperando hueco en la cola, se descarta la notificación {}", key);
+            aviso.completeExceptionally(new RejectedExecutionException("Interrumpido esperando hueco en la cola"));
+        } finally {
+            lock.unlock();
+        }
+        return aviso;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return cola.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    private void descartarMasAntiguo() {
+        Envio descartado = cola.pollFirst();
+        if (descartado != null) {
+            pendientes.remove(descartado.key, descartado);
+            dropped.incrementAndGet();
+            log.warn("Cola de notificaciones llena, se descarta la notificación {}", descartado.key);
+            RejectedExecutionException motivo = new RejectedExecutionException("Cola de notificaciones llena");
+            descartado.avisos.forEach(aviso -> aviso.completeExceptionally(motivo));
+        }
+    }
+
+    private void procesar() {
+        while (true) {
+            Envio envio;
+            lock.lock();
+            try {
+                while (cola.isEmpty() && running) {
+                    notEmpty.await();
+                }
+                envio = cola.pollFirst();
+                if (envio == null) {
+                    return;
+                }
+                pendientes.remove(envio.key, envio);
+                notFull.signal();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                envio.tarea.run();
+                envio.avisos.forEach(aviso -> aviso.complete(null));
+            } catch (Exception e) {
+                log.error("Error al enviar la notificación {}", envio.key, e);
+                envio.avisos.forEach(aviso -> aviso.completeExceptionally(e));
+            }
+        }
+    }
+
+    private static final class Envio {
+        private final String key;
+        private Runnable tarea;
+        // Un aviso por cada publish que acaba en este envío; solo se modifica con el lock mientras está en la cola
+        private final List<CompletableFuture<Void>> avisos = new ArrayList<>(1);
+
+        private Envio(String key, Runnable tarea) {
+            this.key = key;
+            this.tarea = tarea;
+        }
+    }
+}
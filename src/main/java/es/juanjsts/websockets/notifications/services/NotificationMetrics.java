@@ -0,0 +1,50 @@
+package es.juanjsts.websockets.notifications.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+// Métricas del camino de las notificaciones: serialización y cola de envío. Las del stream SSE están en SseMetrics
+@Component
+public class NotificationMetrics {
+    private final Timer outboxSerialization;
+    private final Timer frameSerialization;
+
+    public NotificationMetrics(MeterRegistry registry, NotificationDispatcher notificationDispatcher) {
+        outboxSerialization = serializationTimer(registry, "outbox");
+        frameSerialization = serializationTimer(registry, "frame");
+        Gauge.builder("notifications.queue.depth", notificationDispatcher, NotificationDispatcher::getQueueDepth)
+                .description("Notificaciones pendientes en la cola de envío")
+                .register(registry);
+        FunctionCounter.builder("notifications.queue.discarded", notificationDispatcher, NotificationDispatcher::getDroppedCount)
+                .description("Notificaciones descartadas por la cola de envío llena")
+                .tag("reason", "dropped")
+                .register(registry);
+        FunctionCounter.builder("notifications.queue.discarded", notificationDispatcher, NotificationDispatcher::getCoalescedCount)
+                .description("Notificaciones sustituidas en la cola por un cambio posterior de la misma clave")
+                .tag("reason", "coalesced")
+                .register(registry);
+    }
+
+    private static Timer serializationTimer(MeterRegistry registry, String stage) {
+        return Timer.builder("notifications.serialization.duration")
+                .description("Tiempo de serialización de una notificación a JSON")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    // Serialización en onChange al guardar el cambio en el outbox
+    public void recordOutboxSerialization(long startNanos) {
+        outboxSerialization.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Serialización del frame que se envía a los clientes ws y SSE
+    public void recordFrameSerialization(long startNanos) {
+        frameSerialization.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,9 @@
+package es.juanjsts.websockets.notifications.services;
+
+import es.juanjsts.websockets.notifications.models.Notificacion;
+import es.juanjsts.websockets.notifications.models.NotificationTopic;
+
+public interface NotificationOutbox {
+    // Guarda la notificación en la transacción actual; se envía cuando el relay la recoge tras el commit
+    void record(String key, Notificacion<?> notificacion, NotificationTopic topic);
+}
@@ -0,0 +1,55 @@
+package es.juanjsts.websockets.notifications.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.juanjsts.websockets.notifications.models.Notificacion;
+import es.juanjsts.websockets.notifications.models.NotificationOutboxEvent;
+import es.juanjsts.websockets.notifications.models.NotificationPayload;
+import es.juanjsts.websockets.notifications.models.NotificationTopic;
+import es.juanjsts.websockets.notifications.repositories.NotificationOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class NotificationOutboxImpl implements NotificationOutbox {
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationOutboxRelay outboxRelay;
+    private final ObjectMapper objectMapper;
+    private final NotificationMetrics notificationMetrics;
+
+    @Override
+    public void record(String key, Notificacion<?> notificacion, NotificationTopic topic) {
+        NotificationOutboxEvent event;
+        try {
+            long inicio = System.nanoTime();
+            event = NotificationOutboxEvent.builder()
+                    .key(key)
+                    .notificacion(objectMapper.writeValueAsString(notificacion))
+                    .payloadType(NotificationPayload.of(notificacion))
+                    .topic(objectMapper.writeValueAsString(topic))
+                    .build();
+            notificationMetrics.recordOutboxSerialization(inicio);
+        } catch (JsonProcessingException e) {
+            log.error("Error al convertir la notificación a JSON", e);
+            return;
+        }
+        outboxRepository.save(event);
+
+        // Tras el commit se avisa al relay para no esperar al siguiente sondeo
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outboxRelay.wakeUp();
+                }
+            });
+        } else {
+            outboxRelay.wakeUp();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package es.juanjsts.websockets.notifications.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.juanjsts.websockets.notifications.models.NotificationOutboxEvent;
+import es.juanjsts.websockets.notifications.models.NotificationPayload;
+import es.juanjsts.websockets.notifications.models.NotificationTopic;
+import es.juanjsts.websockets.notifications.repositories.NotificationOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Vacía la tabla de outbox por lotes hacia el broadcaster. Una notificación solo se borra cuando un hilo del
+// dispatcher ha entregado el frame a los clientes ws y SSE; si el dispatcher la descarta (cola llena o parada)
+// o no se entrega a tiempo, la fila se queda y se reintenta en el siguiente sondeo.
+// Entrega al menos una vez: si el nodo cae entre el envío y el borrado, se reenvía
+@Slf4j
+@Component
+public class NotificationOutboxRelay implements InitializingBean, DisposableBean {
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationBroadcaster notificationBroadcaster;
+    private final ObjectMapper objectMapper;
+    private final long pollMs;
+    private final int batchSize;
+    private final long deliveryTimeoutMs;
+
+    // Un único hilo: los lotes se envían en orden y nunca dos a la vez
+    private ScheduledExecutorService scheduler;
+
+    public NotificationOutboxRelay(
+            NotificationOutboxRepository outboxRepository,
+            NotificationBroadcaster notificationBroadcaster,
+            ObjectMapper objectMapper,
+            @Value("${notifications.outbox.poll-ms:500}") long pollMs,
+            @Value("${notifications.outbox.batch-size:100}") int batchSize,
+            @Value("${notifications.outbox.delivery-timeout-ms:5000}") long deliveryTimeoutMs) {
+        this.outboxRepository = outboxRepository;
+        this.notificationBroadcaster = notificationBroadcaster;
+        this.objectMapper = objectMapper;
+        this.pollMs = pollMs;
+        this.batchSize = batchSize;
+        this.deliveryTimeoutMs = deliveryTimeoutMs;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("notificaciones-outbox").factory());
+        scheduler.scheduleWithFixedDelay(this::drain, pollMs, pollMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    public void wakeUp() {
+        try {
+            scheduler.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            log.debug("Relay de notificaciones detenido, el cambio se enviará en el próximo arranque");
+        }
+    }
+
+    // Solo se lee otro lote si el anterior estaba lleno y se entregó entero
+    void drain() {
+        try {
+            while (relayBatch() == batchSize) {
+                log.debug("Outbox con más de {} notificaciones pendientes, se envía otro lote", batchSize);
+            }
+        } catch (RuntimeException e) {
+            log.error("Error al vaciar el outbox de notificaciones", e);
+        }
+    }
+
+    int relayBatch() {
+        List<NotificationOutboxEvent> lote = outboxRepository.findAllByOrderByIdAsc(PageRequest.of(0, batchSize));
+        if (lote.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(lote.size());
+        List<CompletableFuture<Void>> entregas = new ArrayList<>(lote.size());
+        for (NotificationOutboxEvent event : lote) {
+            NotificationPayload payload = event.getPayloadType() != null ? event.getPayloadType() : NotificationPayload.OTRO;
+            CompletableFuture<Void> entrega;
+            try {
+                entrega = notificationBroadcaster.broadcast(event.getKey(),
+                        payload.read(objectMapper, event.getNotificacion()),
+                        objectMapper.readValue(event.getTopic(), NotificationTopic.class));
+            } catch (JsonProcessingException e) {
+                // No se podrá enviar nunca, se descarta para no bloquear el resto
+                log.error("Notificación {} del outbox no válida, se descarta: {}", event.getId(), e.getOriginalMessage());
+                entrega = CompletableFuture.completedFuture(null);
+            }
+            ids.add(event.getId());
+            entregas.add(entrega);
+        }
+
+        List<Long> entregados = new ArrayList<>(lote.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deliveryTimeoutMs);
+        for (int i = 0; i < ids.size(); i++) {
+            try {
+                entregas.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                entregados.add(ids.get(i));
+            } catch (ExecutionException | TimeoutException e) {
+                log.warn("Notificación {} del outbox sin entregar, se reintentará: {}", ids.get(i), e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (!entregados.isEmpty()) {
+            outboxRepository.deleteAllByIdInBatch(entregados);
+        }
+        return entregados.size();
+    }
+}
@@ -0,0 +1,64 @@
+package es.juanjsts.websockets.notifications.services;
+
+import es.juanjsts.websockets.notifications.models.Notificacion;
+import es.juanjsts.websockets.notifications.models.NotificationTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Buffer circular con las últimas notificaciones ya codificadas, para reenviar a los clientes que reconectan
+@Component
+public class NotificationReplayBuffer {
+    private final Entry[] entries;
+    private long lastSeq = 0;
+
+    public NotificationReplayBuffer(@Value("${notifications.replay.capacity:1000}") int capacity) {
+        this.entries = new Entry[capacity];
+    }
+
+    // Asigna el siguiente número de secuencia, codifica el frame con él y lo guarda
+    public Entry append(FrameEncoder encoder, NotificationTopic topic) throws IOException {
+        return append(encoder, topic, null);
+    }
+
+    public synchronized Entry append(FrameEncoder encoder, NotificationTopic topic, Lote lote) throws IOException {
+        long seq = lastSeq + 1;
+        Entry entry = new Entry(seq, encoder.encode(seq), topic, lote);
+        entries[(int) (seq % entries.length)] = entry;
+        lastSeq = seq;
+        return entry;
+    }
+
+    public synchronized long getLastSeq() {
+        return lastSeq;
+    }
+
+    public synchronized Replay since(long clientSeq) {
+        long oldestSeq = Math.max(1, lastSeq - entries.length + 1);
+        // Hueco demasiado grande o secuencia de otro arranque del servidor
+        if (clientSeq > lastSeq || clientSeq + 1 < oldestSeq) {
+            return new Replay(true, lastSeq, List.of());
+        }
+        List<Entry> perdidas = new ArrayList<>((int) (lastSeq - clientSeq));
+        for (long seq = clientSeq + 1; seq <= lastSeq; seq++) {
+            perdidas.add(entries[(int) (seq % entries.length)]);
+        }
+        return new Replay(false, lastSeq, perdidas);
+    }
+
+    @FunctionalInterface
+    public interface FrameEncoder {
+        String encode(long seq) throws IOException;
+    }
+
+    // topic es la unión de los del lote; lote es null si el frame lleva una sola notificación
+    public record Entry(long seq, String json, NotificationTopic topic, Lote lote) {}
+
+    // Notificaciones de un frame agrupado con el topic de cada una, en el mismo orden
+    public record Lote(Notificacion<List<Notificacion<?>>> notificacion, List<NotificationTopic> topics) {}
+
+    public record Replay(boolean resyncRequired, long lastSeq, List<Entry> entries) {}
+}
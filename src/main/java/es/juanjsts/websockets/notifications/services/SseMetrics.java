@@ -0,0 +1,47 @@
+package es.juanjsts.websockets.notifications.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+// Métricas del stream SSE, con los mismos nombres de razón que las de los endpoints WebSocket
+class SseMetrics {
+    private final MeterRegistry registry;
+    private final Timer sendTimer;
+    private final Counter sendErrors;
+
+    SseMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        sendTimer = Timer.builder("sse.send.duration")
+                .description("Latencia de envío de un evento a un cliente SSE")
+                .publishPercentileHistogram()
+                .register(registry);
+        sendErrors = Counter.builder("sse.send.failures")
+                .description("Envíos a un cliente SSE que no se han completado")
+                .tag("reason", "error")
+                .register(registry);
+    }
+
+    // Los medidores que leen del servicio se registran cuando ya está construido
+    void bind(SseNotificationServiceImpl service) {
+        Gauge.builder("sse.subscribers", service, SseNotificationServiceImpl::getSubscriberCount)
+                .description("Clientes conectados al stream SSE")
+                .register(registry);
+        FunctionCounter.builder("sse.subscribers.closed", service, SseNotificationServiceImpl::getSlowConsumerClosures)
+                .description("Clientes SSE cerrados por el servidor")
+                .tag("reason", "slow-consumer")
+                .register(registry);
+    }
+
+    void recordSend(long startNanos) {
+        sendTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void sendError() {
+        sendErrors.increment();
+    }
+}
@@ -0,0 +1,11 @@
+package es.juanjsts.websockets.notifications.services;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface SseNotificationService {
+    SseEmitter subscribe(Long lastEventId);
+
+    void send(NotificationReplayBuffer.Entry entry);
+
+    int getSubscriberCount();
+}
@@ -0,0 +1,156 @@
+package es.juanjsts.websockets.notifications.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.juanjsts.websockets.notifications.models.Notificacion;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+public class SseNotificationServiceImpl implements SseNotificationService, InitializingBean {
+    private final NotificationReplayBuffer replayBuffer;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMs;
+    private final int bufferSize;
+
+    private final Set<Suscriptor> suscriptores = new CopyOnWriteArraySet<>();
+    private final AtomicLong slowConsumerClosures = new AtomicLong();
+    private final SseMetrics metrics;
+
+    public SseNotificationServiceImpl(
+            NotificationReplayBuffer replayBuffer,
+            ObjectMapper objectMapper,
+            @Value("${notifications.sse.timeout-ms:1800000}") long timeoutMs,
+            @Value("${notifications.sse.buffer-size:256}") int bufferSize,
+            MeterRegistry meterRegistry) {
+        this.replayBuffer = replayBuffer;
+        this.objectMapper = objectMapper;
+        this.timeoutMs = timeoutMs;
+        this.bufferSize = bufferSize;
+        this.metrics = new SseMetrics(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        metrics.bind(this);
+    }
+
+    @Override
+    public SseEmitter subscribe(Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Suscriptor suscriptor = new Suscriptor(emitter, new ArrayBlockingQueue<>(bufferSize));
+        // Primero se registra para no perder cambios mientras se calcula el replay
+        suscriptores.add(suscriptor);
+        emitter.onCompletion(() -> cerrar(suscriptor));
+        emitter.onTimeout(() -> cerrar(suscriptor));
+        emitter.onError(e -> cerrar(suscriptor));
+
+        NotificationReplayBuffer.Replay replay = lastEventId != null ? replayBuffer.since(lastEventId) : null;
+        suscriptor.hilo = Thread.ofVirtual().name("sse-videojuegos").start(() -> procesar(suscriptor, replay));
+        log.info("Nuevo suscriptor SSE, lastEventId: {}, total: {}", lastEventId, suscriptores.size());
+        return emitter;
+    }
+
+    // El evento se construye una sola vez con el JSON ya codificado y se comparte entre suscriptores
+    @Override
+    public void send(NotificationReplayBuffer.Entry entry) {
+        if (suscriptores.isEmpty()) {
+            return;
+        }
+        Evento evento = evento(entry);
+        for (Suscriptor suscriptor : suscriptores) {
+            if (!suscriptor.cola.offer(evento)) {
+                long total = slowConsumerClosures.incrementAndGet();
+                log.warn("Suscriptor SSE lento, se cierra la conexión ({} en total)", total);
+                cerrar(suscriptor);
+                suscriptor.emitter.complete();
+            }
+        }
+    }
+
+    @Override
+    public int getSubscriberCount() {
+        return suscriptores.size();
+    }
+
+    public long getSlowConsumerClosures() {
+        return slowConsumerClosures.get();
+    }
+
+    private void procesar(Suscriptor suscriptor, NotificationReplayBuffer.Replay replay) {
+        long ultimo = 0;
+        try {
+            if (replay != null && replay.resyncRequired()) {
+                String resync = objectMapper.writeValueAsString(Notificacion.resync("VIDEOJUEGOS", replay.lastSeq()));
+                enviar(suscriptor, SseEmitter.event().name("resync").data(resync).build());
+            } else if (replay != null) {
+                for (NotificationReplayBuffer.Entry entry : replay.entries()) {
+                    enviar(suscriptor, evento(entry).datos());
+                    ultimo = entry.seq();
+                }
+            }
+            while (suscriptor.activo) {
+                Evento evento = suscriptor.cola.poll(1, TimeUnit.SECONDS);
+                // Los cambios ya enviados en el replay se descartan
+                if (evento == null || evento.seq() <= ultimo) {
+                    continue;
+                }
+                enviar(suscriptor, evento.datos());
+                ultimo = evento.seq();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | IllegalStateException e) {
+            metrics.sendError();
+            log.debug("Suscriptor SSE desconectado: {}", e.getMessage());
+            cerrar(suscriptor);
+        }
+    }
+
+    private void enviar(Suscriptor suscriptor, Set<ResponseBodyEmitter.DataWithMediaType> datos) throws IOException {
+        long inicio = System.nanoTime();
+        suscriptor.emitter.send(datos);
+        metrics.recordSend(inicio);
+    }
+
+    private void cerrar(Suscriptor suscriptor) {
+        if (suscriptores.remove(suscriptor)) {
+            suscriptor.activo = false;
+            if (suscriptor.hilo != null) {
+                suscriptor.hilo.interrupt();
+            }
+            log.info("Suscriptor SSE cerrado, total: {}", suscriptores.size());
+        }
+    }
+
+    private Evento evento(NotificationReplayBuffer.Entry entry) {
+        return new Evento(entry.seq(), SseEmitter.event().id(String.valueOf(entry.seq())).data(entry.json()).build());
+    }
+
+    private record Evento(long seq, Set<ResponseBodyEmitter.DataWithMediaType> datos) {}
+
+    private static final class Suscriptor {
+        private final SseEmitter emitter;
+        private final BlockingQueue<Evento> cola;
+        private volatile boolean activo = true;
+        private volatile Thread hilo;
+
+        private Suscriptor(SseEmitter emitter, BlockingQueue<Evento> cola) {
+            this.emitter = emitter;
+            this.cola = cola;
+        }
+    }
+}
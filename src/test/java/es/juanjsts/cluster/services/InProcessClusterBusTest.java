@@ -0,0 +1,71 @@
+package es.juanjsts.cluster.services;
+
+import es.juanjsts.cluster.models.ClusterEvent;
+import es.juanjsts.websockets.notifications.models.Notificacion;
+import es.juanjsts.websockets.notifications.models.NotificationTopic;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InProcessClusterBusTest {
+    private InProcessClusterBus nodoA;
+    private InProcessClusterBus nodoB;
+    private final List<ClusterEvent> recibidosA = new CopyOnWriteArrayList<>();
+    private final List<ClusterEvent> recibidosB = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // Ventana larga: los lotes se envían a mano con flush()
+        nodoA = new InProcessClusterBus(60_000, 100, 100);
+        nodoB = new InProcessClusterBus(60_000, 100, 100);
+        nodoA.subscribe(recibidosA::add);
+        nodoB.subscribe(recibidosB::add);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        nodoA.destroy();
+        nodoB.destroy();
+    }
+
+    @Test
+    void publish_ShouldRelayBatchToOtherNodesOnly() {
+        //Arrange
+        nodoA.publish("VIDEOJUEGOS-1", notificacion(Notificacion.Tipo.CREATE), NotificationTopic.of(1L, "Nintendo", "Party"));
+        nodoA.publish("VIDEOJUEGOS-2", notificacion(Notificacion.Tipo.DELETE), NotificationTopic.of(2L, "Nintendo", "Party"));
+
+        //Act
+        assertTrue(recibidosB.isEmpty());
+        nodoA.flush();
+
+        //Assert
+        assertAll("relay",
+                () -> assertEquals(2, recibidosB.size()),
+                () -> assertEquals("VIDEOJUEGOS-1", recibidosB.getFirst().key()),
+                () -> assertEquals(nodoA.getNodeId(), recibidosB.getFirst().nodeId()),
+                () -> assertTrue(recibidosA.isEmpty())
+        );
+    }
+
+    @Test
+    void deliver_ShouldDiscardDuplicatedEvents() {
+        //Arrange
+        nodoA.publish("VIDEOJUEGOS-1", notificacion(Notificacion.Tipo.UPDATE), NotificationTopic.of(1L, "Nintendo", "Party"));
+        nodoA.flush();
+
+        //Act
+        nodoB.deliver(List.copyOf(recibidosB));
+
+        //Assert
+        assertEquals(1, recibidosB.size());
+    }
+
+    private Notificacion<String> notificacion(Notificacion.Tipo tipo) {
+        return new Notificacion<>("VIDEOJUEGOS", tipo, "datos", "2025-01-01T00:00");
+    }
+}
@@ -0,0 +1,99 @@
+package es.juanjsts.config.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import es.juanjsts.cluster.models.CacheInvalidation;
+import es.juanjsts.cluster.services.InProcessClusterBus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterCacheInvalidatorTest {
+    private InProcessClusterBus busA;
+    private InProcessClusterBus busB;
+    private ClusterCacheInvalidator invalidatorA;
+    private ClusterCacheInvalidator invalidatorB;
+    private SingleFlightCaffeineCache cacheA;
+    private SingleFlightCaffeineCache cacheB;
+
+    @BeforeEach
+    void setUp() {
+        // Lotes de un evento en el bus (se envían al publicar) y ventana larga en el invalidador, que se vacía a mano
+        busA = new InProcessClusterBus(60_000, 1, 100);
+        busB = new InProcessClusterBus(60_000, 1, 100);
+        invalidatorA = new ClusterCacheInvalidator(busA, true, 60_000);
+        invalidatorB = new ClusterCacheInvalidator(busB, true, 60_000);
+        invalidatorA.afterPropertiesSet();
+        invalidatorB.afterPropertiesSet();
+        cacheA = new SingleFlightCaffeineCache("videojuegos", Caffeine.newBuilder().build(), true, invalidatorA);
+        cacheB = new SingleFlightCaffeineCache("videojuegos", Caffeine.newBuilder().build(), true, invalidatorB);
+        invalidatorA.register(cacheA);
+        invalidatorB.register(cacheB);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        invalidatorA.destroy();
+        invalidatorB.destroy();
+        busA.destroy();
+        busB.destroy();
+    }
+
+    @Test
+    void put_ShouldEvictKeyOnOtherNodes_OnceFlushed() {
+        //Arrange
+        cacheB.putLocal(1L, "Among us");
+        cacheB.putLocal(2L, "Minecraft");
+
+        //Act
+        cacheA.put(1L, "Among us 2");
+        cacheA.evict(1L);
+        invalidatorA.flush();
+
+        //Assert
+        assertAll("invalidación",
+                () -> assertNull(cacheB.get(1L)),
+                () -> assertEquals("Minecraft", cacheB.get(2L).get())
+        );
+    }
+
+    @Test
+    void onClusterEvent_ShouldApplyLocally_WithoutPublishingAgain() {
+        //Arrange
+        cacheA.putLocal(1L, "Among us");
+        cacheB.put(1L, "Among us 2");
+
+        //Act
+        invalidatorB.flush();
+        // Lo recibido de B no se ha encolado en A, así que no vuelve a B
+        invalidatorA.flush();
+
+        //Assert
+        assertAll("sin eco",
+                () -> assertNull(cacheA.get(1L)),
+                () -> assertEquals("Among us 2", cacheB.get(1L).get())
+        );
+    }
+
+    @Test
+    void onClusterEvent_ShouldNotifyInvalidationListeners_WithDecodedKey() {
+        //Arrange
+        List<CacheInvalidation> recibidas = new CopyOnWriteArrayList<>();
+        invalidatorB.onInvalidation(recibidas::add);
+
+        //Act
+        cacheA.put(1L, "Among us");
+        invalidatorA.flush();
+
+        //Assert
+        assertAll("listener",
+                () -> assertEquals(1, recibidas.size()),
+                () -> assertEquals("videojuegos", recibidas.getFirst().region()),
+                () -> assertEquals(1L, recibidas.getFirst().decodedKey())
+        );
+    }
+}
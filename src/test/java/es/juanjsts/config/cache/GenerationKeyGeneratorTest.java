@@ -0,0 +1,60 @@
+package es.juanjsts.config.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class GenerationKeyGeneratorTest {
+    private final EntityGenerations generations = new EntityGenerations(mock(ClusterCacheInvalidator.class));
+    private final GenerationKeyGenerator keyGenerator = new GenerationKeyGenerator(generations, EntityGenerations.VIDEOJUEGOS, EntityGenerations.PLATAFORMAS);
+
+    @Test
+    void generate_ShouldNormalizeFilters() throws Exception {
+        //Arrange
+        Method method = Object.class.getMethod("toString");
+
+        //Act
+        Object key1 = keyGenerator.generate(this, method, Optional.of(" Mario "), Optional.empty(), PageRequest.of(0, 4, Sort.by("id")));
+        Object key2 = keyGenerator.generate(this, method, Optional.of("mario"), Optional.of(""), PageRequest.of(0, 4, Sort.by("id")));
+
+        //Assert
+        assertEquals(key1, key2);
+    }
+
+    @Test
+    void generate_ShouldChangeKey_WhenGenerationIsBumped() throws Exception {
+        //Arrange
+        Method method = Object.class.getMethod("toString");
+        Object antes = keyGenerator.generate(this, method, Optional.empty(), PageRequest.of(0, 4));
+
+        //Act
+        generations.bump("videojuegos");
+        Object despues = keyGenerator.generate(this, method, Optional.empty(), PageRequest.of(0, 4));
+
+        //Assert
+        assertAll("generación",
+                () -> assertNotEquals(antes, despues),
+                () -> assertEquals(1, generations.current("videojuegos"))
+        );
+    }
+
+    @Test
+    void generate_ShouldChangeKey_WhenPlataformasGenerationIsBumped() throws Exception {
+        //Arrange
+        Method method = Object.class.getMethod("toString");
+        Object antes = keyGenerator.generate(this, method, Optional.of("nintendo"), PageRequest.of(0, 4));
+
+        //Act
+        generations.bump(EntityGenerations.PLATAFORMAS);
+        Object despues = keyGenerator.generate(this, method, Optional.of("nintendo"), PageRequest.of(0, 4));
+
+        //Assert
+        assertNotEquals(antes, despues);
+    }
+}
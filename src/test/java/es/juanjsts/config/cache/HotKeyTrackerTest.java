@@ -0,0 +1,58 @@
+package es.juanjsts.config.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotKeyTrackerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void save_ShouldPersistMostAccessedIds_InDescendingOrder() {
+        //Arrange
+        String file = dir.resolve("hot-keys.properties").toString();
+        HotKeyTracker tracker = new HotKeyTracker(file, 2, 60000, 100);
+        tracker.record(HotKeyTracker.VIDEOJUEGOS, 1L);
+        tracker.record(HotKeyTracker.VIDEOJUEGOS, 2L);
+        tracker.record(HotKeyTracker.VIDEOJUEGOS, 2L);
+        tracker.record(HotKeyTracker.VIDEOJUEGOS, 3L);
+        tracker.record(HotKeyTracker.VIDEOJUEGOS, 3L);
+        tracker.record(HotKeyTracker.VIDEOJUEGOS, 3L);
+
+        //Act
+        tracker.save();
+        List<Long> persisted = new HotKeyTracker(file, 2, 60000, 100).persisted(HotKeyTracker.VIDEOJUEGOS);
+
+        //Assert
+        assertAll("claves más pedidas",
+                () -> assertEquals(List.of(3L, 2L), persisted),
+                () -> assertTrue(new HotKeyTracker(file, 2, 60000, 100).persisted("jugadores").isEmpty())
+        );
+    }
+
+    @Test
+    void record_ShouldKeepTrackedIdsBounded_WhenManyDistinctIdsArrive() {
+        //Arrange
+        HotKeyTracker tracker = new HotKeyTracker(dir.resolve("hot-keys.properties").toString(), 100, 60000, 10);
+
+        //Act
+        // Un barrido de ids que solo se piden una vez mientras el 1 se sigue pidiendo
+        for (long id = 2; id <= 1000; id++) {
+            tracker.record(HotKeyTracker.VIDEOJUEGOS, 1L);
+            tracker.record(HotKeyTracker.VIDEOJUEGOS, id);
+        }
+        List<Long> hottest = tracker.hottest(HotKeyTracker.VIDEOJUEGOS);
+
+        //Assert
+        assertAll("acotado",
+                () -> assertTrue(hottest.size() <= 10),
+                () -> assertEquals(1L, hottest.getFirst())
+        );
+    }
+}
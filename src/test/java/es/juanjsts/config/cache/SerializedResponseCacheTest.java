@@ -0,0 +1,63 @@
+package es.juanjsts.config.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerializedResponseCacheTest {
+
+    private SerializedResponseCache cache(boolean offHeap) {
+        return new SerializedResponseCache(new ObjectMapper(), new SimpleMeterRegistry(), true, offHeap, 1024 * 1024);
+    }
+
+    @Test
+    void json_ShouldReuseBytes_WhileVersionIsTheSame() throws IOException {
+        //Arrange
+        SerializedResponseCache cache = cache(false);
+
+        //Act
+        // La cache de entidades puede devolver otro objeto igual (recargado o de otra copia): cuenta la versión
+        Resource primero = cache.json(SerializedResponseCache.VIDEOJUEGOS, 1L, "1-v1", Map.of("id", 1, "nombre", "Among us"));
+        Resource segundo = cache.json(SerializedResponseCache.VIDEOJUEGOS, 1L, "1-v1", Map.of("id", 1, "nombre", "Among us"));
+
+        //Assert
+        assertAll("misma entrada",
+                () -> assertSame(((ByteArrayResource) primero).getByteArray(), ((ByteArrayResource) segundo).getByteArray()),
+                () -> assertEquals("{\"id\":1,\"nombre\":\"Among us\"}".length(), primero.contentLength())
+        );
+    }
+
+    @Test
+    void json_ShouldSerializeAgain_WhenVersionChanges() throws IOException {
+        //Arrange
+        SerializedResponseCache cache = cache(true);
+        cache.json(SerializedResponseCache.VIDEOJUEGOS, 1L, "1-v1", Map.of("nombre", "Among us"));
+
+        //Act
+        Resource json = cache.json(SerializedResponseCache.VIDEOJUEGOS, 1L, "1-v2", Map.of("nombre", "Minecraft"));
+
+        //Assert
+        assertEquals("{\"nombre\":\"Minecraft\"}", new String(json.getInputStream().readAllBytes()));
+    }
+
+    @Test
+    void evict_ShouldSerializeAgain_WhenSameVersionIsRequestedAfterEvict() throws IOException {
+        //Arrange
+        SerializedResponseCache cache = cache(false);
+        Resource primero = cache.json(SerializedResponseCache.VIDEOJUEGOS, 1L, "1-v1", Map.of("nombre", "Among us"));
+
+        //Act
+        cache.evict(SerializedResponseCache.VIDEOJUEGOS, 1L);
+        Resource segundo = cache.json(SerializedResponseCache.VIDEOJUEGOS, 1L, "1-v1", Map.of("nombre", "Among us"));
+
+        //Assert
+        assertNotSame(((ByteArrayResource) primero).getByteArray(), ((ByteArrayResource) segundo).getByteArray());
+    }
+}
@@ -0,0 +1,84 @@
+package es.juanjsts.config.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightCaffeineCacheTest {
+    private final SingleFlightCaffeineCache cache = new SingleFlightCaffeineCache("videojuegos", Caffeine.newBuilder().build(), true);
+
+    @Test
+    void get_ShouldLoadOnce_WhenConcurrentCallsShareKey() throws Exception {
+        //Arrange
+        AtomicInteger cargas = new AtomicInteger();
+        CountDownLatch cargando = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        int peticiones = 8;
+        Callable<String> loader = () -> {
+            cargas.incrementAndGet();
+            cargando.countDown();
+            liberar.await(5, TimeUnit.SECONDS);
+            return "Among us";
+        };
+
+        //Act
+        List<Future<String>> resultados = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < peticiones; i++) {
+                resultados.add(executor.submit(() -> cache.get(1L, loader)));
+            }
+            // Con la primera carga en curso el resto se queda esperando en Caffeine
+            cargando.await(5, TimeUnit.SECONDS);
+            Thread.sleep(50);
+            liberar.countDown();
+        }
+
+        //Assert
+        for (Future<String> resultado : resultados) {
+            assertEquals("Among us", resultado.get());
+        }
+        assertEquals(1, cargas.get());
+    }
+
+    @Test
+    void reload_ShouldKeepNewerValue_WhenAnotherReloadAlreadyReplacedIt() {
+        //Arrange
+        cache.put(1L, "Among us");
+        Object anterior = cache.getNativeCache().getIfPresent(1L);
+        cache.reload(1L, anterior, () -> "Minecraft");
+        AtomicInteger cargas = new AtomicInteger();
+
+        //Act
+        String valor = cache.reload(1L, anterior, () -> "Tetris-" + cargas.incrementAndGet());
+
+        //Assert
+        assertAll("recarga compartida",
+                () -> assertEquals("Minecraft", valor),
+                () -> assertEquals(0, cargas.get())
+        );
+    }
+
+    @Test
+    void reload_ShouldPropagateException_AndKeepPreviousValue() {
+        //Arrange
+        cache.put(1L, "Among us");
+        Object anterior = cache.getNativeCache().getIfPresent(1L);
+
+        //Act y Assert
+        assertThrows(IllegalStateException.class, () -> cache.reload(1L, anterior, () -> {
+            throw new IllegalStateException("no existe");
+        }));
+        assertEquals("Among us", cache.get(1L).get());
+    }
+}
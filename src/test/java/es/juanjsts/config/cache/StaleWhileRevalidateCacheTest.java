@@ -0,0 +1,108 @@
+package es.juanjsts.config.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StaleWhileRevalidateCacheTest {
+
+    private StaleWhileRevalidateCache cache(Duration fresh, Duration grace, Duration maxStale) {
+        return new StaleWhileRevalidateCache("videojuegos", Caffeine.newBuilder().build(), true,
+                new StaleWhileRevalidateCache.Policy(fresh, grace, maxStale));
+    }
+
+    @Test
+    void get_ShouldServeCachedValue_WhenFresh() {
+        //Arrange
+        StaleWhileRevalidateCache cache = cache(Duration.ofHours(1), Duration.ZERO, Duration.ofHours(1));
+        AtomicInteger cargas = new AtomicInteger();
+        cache.put(1L, "Among us");
+
+        //Act
+        String valor = cache.get(1L, () -> "recargado-" + cargas.incrementAndGet());
+
+        //Assert
+        assertAll("fresco",
+                () -> assertEquals("Among us", valor),
+                () -> assertEquals(0, cargas.get())
+        );
+    }
+
+    @Test
+    void get_ShouldServeStaleValue_WhenReloadFailsWithinMaxStale() {
+        //Arrange
+        StaleWhileRevalidateCache cache = cache(Duration.ZERO, Duration.ZERO, Duration.ofHours(1));
+        cache.put(1L, "Among us");
+
+        //Act
+        String valor = cache.get(1L, () -> {
+            throw new DataAccessResourceFailureException("base de datos caída");
+        });
+
+        //Assert
+        assertEquals("Among us", valor);
+    }
+
+    @Test
+    void get_ShouldReloadSynchronously_WhenPastGrace() {
+        //Arrange
+        StaleWhileRevalidateCache cache = cache(Duration.ZERO, Duration.ZERO, Duration.ofHours(1));
+        cache.put(1L, "Among us");
+
+        //Act
+        String valor = cache.get(1L, () -> "Minecraft");
+
+        //Assert
+        assertAll("recarga",
+                () -> assertEquals("Minecraft", valor),
+                () -> assertEquals("Minecraft", cache.get(1L).get())
+        );
+    }
+
+    @Test
+    void get_ShouldRethrow_WhenReloadFailsWithBusinessError() {
+        //Arrange
+        StaleWhileRevalidateCache cache = cache(Duration.ZERO, Duration.ZERO, Duration.ofHours(1));
+        cache.put(1L, "Among us");
+
+        //Act y Assert
+        assertThrows(IllegalStateException.class, () -> cache.get(1L, () -> {
+            throw new IllegalStateException("ya no existe");
+        }));
+    }
+
+    @Test
+    void get_ShouldNotRestoreEntry_WhenEvictedDuringBackgroundRefresh() throws Exception {
+        //Arrange
+        StaleWhileRevalidateCache cache = cache(Duration.ZERO, Duration.ofHours(1), Duration.ofHours(1));
+        cache.put(1L, "Among us");
+        CountDownLatch cargando = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        //Act
+        String servido = cache.get(1L, () -> {
+            cargando.countDown();
+            liberar.await(5, TimeUnit.SECONDS);
+            return "Among us (recargado)";
+        });
+        assertTrue(cargando.await(5, TimeUnit.SECONDS));
+        cache.evict(1L);
+        liberar.countDown();
+        while (cache.isRefreshing(1L)) {
+            Thread.sleep(5);
+        }
+
+        //Assert
+        assertAll("evict durante el refresco",
+                () -> assertEquals("Among us", servido),
+                () -> assertNull(cache.get(1L))
+        );
+    }
+}
@@ -0,0 +1,81 @@
+package es.juanjsts.config.websockets;
+
+import es.juanjsts.websockets.notifications.models.NotificationTopic;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubscriptionIndexTest {
+    private final NotificationTopic amongUs = NotificationTopic.of(1L, "Nintendo", "Party");
+    private final NotificationTopic fortnite = NotificationTopic.of(2L, "PlayStation", "Battle Royale");
+
+    private SubscriptionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SubscriptionIndex();
+        index.register("todas");
+        index.register("nintendo");
+        index.register("fortnite");
+        index.subscribe("nintendo", List.of("NINTENDO "), List.of(), List.of());
+        index.subscribe("fortnite", List.of(), List.of(), List.of(2L));
+    }
+
+    @Test
+    void match_ShouldReturnOnlyInterestedSessions() {
+        assertAll("match",
+                () -> assertEquals(Set.of("todas", "nintendo"), index.match(amongUs)),
+                () -> assertEquals(Set.of("todas", "fortnite"), index.match(fortnite))
+        );
+    }
+
+    @Test
+    void unsubscribe_ShouldReceiveNothing_WhenNoFiltersLeft() {
+        //Act
+        index.unsubscribe("fortnite", List.of(), List.of(), List.of(2L));
+
+        //Assert
+        assertAll("sin filtros",
+                () -> assertEquals(Set.of("todas", "nintendo"), index.match(amongUs)),
+                () -> assertEquals(Set.of("todas"), index.match(fortnite)),
+                () -> assertFalse(index.estado("fortnite").todas())
+        );
+    }
+
+    @Test
+    void unsubscribe_ShouldReceiveNothing_WhenUnsubscribingEverything() {
+        //Act
+        index.unsubscribe("todas", List.of(), List.of(), List.of());
+
+        //Assert
+        assertEquals(Set.of("nintendo"), index.match(amongUs));
+    }
+
+    @Test
+    void subscribe_ShouldReceiveAll_WhenResubscribingWithoutFilters() {
+        //Arrange
+        index.unsubscribe("fortnite", List.of(), List.of(), List.of());
+
+        //Act
+        index.subscribe("fortnite", List.of(), List.of(), List.of());
+
+        //Assert
+        assertAll("todas",
+                () -> assertEquals(Set.of("todas", "nintendo", "fortnite"), index.match(amongUs)),
+                () -> assertTrue(index.estado("fortnite").todas())
+        );
+    }
+
+    @Test
+    void remove_ShouldDropSessionFromIndex() {
+        //Act
+        index.remove("nintendo");
+
+        //Assert
+        assertEquals(Set.of("todas"), index.match(amongUs));
+    }
+}
@@ -0,0 +1,280 @@
+package es.juanjsts.config.websockets;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import es.juanjsts.websockets.notifications.models.Notificacion;
+import es.juanjsts.websockets.notifications.models.NotificationTopic;
+import es.juanjsts.websockets.notifications.services.NotificationReplayBuffer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class WebSocketHandlerTest {
+    private static final String LENTO = "{\"lento\":true}";
+    private static final String GRANDE = "{\"nombre\":\"Among Us\",\"plataforma\":\"Nintendo\"}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final NotificationReplayBuffer entradas = new NotificationReplayBuffer(10);
+    private final CountDownLatch liberar = new CountDownLatch(1);
+    private WebSocketHandler handler;
+
+    @AfterEach
+    void tearDown() {
+        liberar.countDown();
+        if (handler != null) {
+            handler.destroy();
+        }
+    }
+
+    @Test
+    void sendMessage_ShouldEvictSession_WhenBufferOverflowsWithClose() throws Exception {
+        //Arrange
+        handler = handler(WebSocketHandler.SlowConsumerPolicy.CLOSE, 60_000);
+        WebSocketSession session = sesionLenta("1");
+        handler.afterConnectionEstablished(session);
+
+        //Act
+        handler.sendMessage(entrada(LENTO));
+        handler.sendMessage(entrada(GRANDE));
+
+        //Assert
+        assertAll("close",
+                () -> assertEquals(1, handler.getEvictedSessions()),
+                () -> assertEquals(0, handler.getLiveSessions()),
+                () -> assertEquals(0, handler.getDroppedFrames())
+        );
+        verify(session).close(any(CloseStatus.class));
+    }
+
+    @Test
+    void sendMessage_ShouldDropOldestAndKeepSession_WhenBufferOverflowsWithDowngrade() throws Exception {
+        //Arrange
+        handler = handler(WebSocketHandler.SlowConsumerPolicy.DOWNGRADE, 60_000);
+        WebSocketSession session = sesionLenta("1");
+        handler.afterConnectionEstablished(session);
+
+        //Act
+        handler.sendMessage(entrada(LENTO));
+        handler.sendMessage(entrada(GRANDE));
+        liberar.countDown();
+        handler.sendMessage(entrada("{}"));
+
+        //Assert
+        verify(session, timeout(1000)).sendMessage(argThat(m -> "{}".equals(m.getPayload())));
+        assertAll("downgrade",
+                () -> assertEquals(0, handler.getEvictedSessions()),
+                () -> assertEquals(1, handler.getLiveSessions()),
+                () -> assertEquals(1, handler.getDroppedFrames())
+        );
+        verify(session, never()).sendMessage(argThat(m -> GRANDE.equals(m.getPayload())));
+        verify(session, never()).close(any(CloseStatus.class));
+    }
+
+    @Test
+    void sendMessage_ShouldSendCbor_WhenSessionNegotiatedCbor() throws Exception {
+        //Arrange
+        handler = handler(WebSocketHandler.SlowConsumerPolicy.CLOSE, 60_000);
+        WebSocketSession json = sesion("1", NotificationFormat.JSON.getSubprotocol());
+        WebSocketSession cbor = sesion("2", NotificationFormat.CBOR.getSubprotocol());
+        handler.afterConnectionEstablished(json);
+        handler.afterConnectionEstablished(cbor);
+        clearInvocations(json, cbor);
+
+        //Act
+        handler.sendMessage(entrada(GRANDE));
+
+        //Assert
+        ArgumentCaptor<WebSocketMessage<?>> textos = ArgumentCaptor.captor();
+        ArgumentCaptor<WebSocketMessage<?>> binarios = ArgumentCaptor.captor();
+        verify(json).sendMessage(textos.capture());
+        verify(cbor).sendMessage(binarios.capture());
+        BinaryMessage binario = assertInstanceOf(BinaryMessage.class, binarios.getValue());
+        byte[] payload = new byte[binario.getPayloadLength()];
+        binario.getPayload().get(payload);
+        assertAll("formatos",
+                () -> assertEquals(GRANDE, assertInstanceOf(TextMessage.class, textos.getValue()).getPayload()),
+                () -> assertEquals(objectMapper.readTree(GRANDE), new CBORMapper().readTree(payload))
+        );
+    }
+
+    @Test
+    void sendMessage_ShouldSendEachSessionOnlyItsBatchItems_WhenSubscriptionsAreDisjoint() throws Exception {
+        //Arrange
+        handler = handler(WebSocketHandler.SlowConsumerPolicy.CLOSE, 60_000);
+        WebSocketSession uno = sesion("1", null);
+        WebSocketSession dos = sesion("2", null);
+        handler.afterConnectionEstablished(uno);
+        handler.afterConnectionEstablished(dos);
+        handler.handleMessage(uno, new TextMessage("{\"action\":\"subscribe\",\"ids\":[1]}"));
+        handler.handleMessage(dos, new TextMessage("{\"action\":\"subscribe\",\"plataformas\":[\"PlayStation\"]}"));
+        clearInvocations(uno, dos);
+
+        List<NotificationTopic> topics = List.of(NotificationTopic.of(1L, "Nintendo", "Party"), NotificationTopic.of(2L, "PlayStation", "Shooter"));
+        var batch = Notificacion.batch("VIDEOJUEGOS", List.of(
+                new Notificacion<>("VIDEOJUEGOS", Notificacion.Tipo.UPDATE, "v1", "2025-01-01T00:00"),
+                new Notificacion<>("VIDEOJUEGOS", Notificacion.Tipo.DELETE, "v2", "2025-01-01T00:00")));
+        var entry = new NotificationReplayBuffer(10).append(seq -> objectMapper.writeValueAsString(batch.withSeq(seq)),
+                topics.get(0).merge(topics.get(1)), new NotificationReplayBuffer.Lote(batch, topics));
+
+        //Act
+        handler.sendMessage(entry);
+
+        //Assert
+        ArgumentCaptor<TextMessage> frameUno = ArgumentCaptor.captor();
+        ArgumentCaptor<TextMessage> frameDos = ArgumentCaptor.captor();
+        verify(uno).sendMessage(frameUno.capture());
+        verify(dos).sendMessage(frameDos.capture());
+        var datosUno = objectMapper.readTree(frameUno.getValue().getPayload());
+        var datosDos = objectMapper.readTree(frameDos.getValue().getPayload());
+        assertAll("lote",
+                () -> assertEquals("BATCH", datosUno.get("type").asText()),
+                () -> assertEquals(1, datosUno.get("seq").asLong()),
+                () -> assertEquals(1, datosUno.get("data").size()),
+                () -> assertEquals("v1", datosUno.get("data").get(0).get("data").asText()),
+                () -> assertEquals(1, datosDos.get("seq").asLong()),
+                () -> assertEquals(1, datosDos.get("data").size()),
+                () -> assertEquals("v2", datosDos.get("data").get(0).get("data").asText())
+        );
+    }
+
+    @Test
+    void handleMessage_ShouldApplyCborSubscription_WhenFrameIsBinary() throws Exception {
+        //Arrange
+        handler = handler(WebSocketHandler.SlowConsumerPolicy.CLOSE, 60_000);
+        WebSocketSession cbor = sesion("1", NotificationFormat.CBOR.getSubprotocol());
+        handler.afterConnectionEstablished(cbor);
+        clearInvocations(cbor);
+        byte[] suscripcion = new CBORMapper().writeValueAsBytes(objectMapper.readTree("{\"action\":\"subscribe\",\"ids\":[1]}"));
+        NotificationReplayBuffer replayBuffer = new NotificationReplayBuffer(10);
+
+        //Act
+        handler.handleMessage(cbor, new BinaryMessage(suscripcion));
+        handler.sendMessage(replayBuffer.append(seq -> "{\"seq\":" + seq + "}", NotificationTopic.of(2L, "Nintendo", "Party")));
+
+        //Assert
+        ArgumentCaptor<WebSocketMessage<?>> frames = ArgumentCaptor.captor();
+        verify(cbor).sendMessage(frames.capture());
+        BinaryMessage ack = assertInstanceOf(BinaryMessage.class, frames.getValue());
+        byte[] payload = new byte[ack.getPayloadLength()];
+        ack.getPayload().get(payload);
+        var estado = new CBORMapper().readTree(payload);
+        assertAll("suscripción binaria",
+                () -> assertEquals(1, estado.get("ids").size()),
+                () -> assertEquals(1, estado.get("ids").get(0).asLong()),
+                () -> assertFalse(estado.get("todas").asBoolean())
+        );
+    }
+
+    @Test
+    void afterConnectionEstablished_ShouldHoldLiveFramesUntilReplayEnds_WhenReconnecting() throws Exception {
+        //Arrange
+        NotificationReplayBuffer replayBuffer = new NotificationReplayBuffer(10);
+        handler = new WebSocketHandler("Videojuegos", 100, 5000, 64 * 1024, WebSocketHandler.SlowConsumerPolicy.CLOSE, objectMapper,
+                replayBuffer, 0, 60_000, new SimpleMeterRegistry());
+        NotificationTopic topic = NotificationTopic.of(1L, "Nintendo", "Party");
+        replayBuffer.append(seq -> "{\"seq\":" + seq + "}", topic);
+        var segunda = replayBuffer.append(seq -> "{\"seq\":" + seq + "}", topic);
+        WebSocketSession session = sesion("1", null);
+        when(session.getUri()).thenReturn(URI.create("ws://localhost/ws/videojuegos?lastSeq=0"));
+        // Mientras se reenvía la primera llegan en directo la segunda (ya incluida en el replay) y una tercera nueva
+        doAnswer(invocation -> {
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            if ("{\"seq\":1}".equals(message.getPayload())) {
+                handler.sendMessage(segunda);
+                handler.sendMessage(replayBuffer.append(seq -> "{\"seq\":" + seq + "}", topic));
+            }
+            return null;
+        }).when(session).sendMessage(any());
+
+        //Act
+        handler.afterConnectionEstablished(session);
+
+        //Assert
+        ArgumentCaptor<TextMessage> frames = ArgumentCaptor.captor();
+        verify(session, times(3)).sendMessage(frames.capture());
+        assertEquals(List.of("{\"seq\":1}", "{\"seq\":2}", "{\"seq\":3}"),
+                frames.getAllValues().stream().map(TextMessage::getPayload).toList());
+    }
+
+    @Test
+    void heartbeat_ShouldReapIdleSessions() throws Exception {
+        //Arrange
+        handler = handler(WebSocketHandler.SlowConsumerPolicy.CLOSE, -1);
+        WebSocketSession session = sesion("1", null);
+        handler.afterConnectionEstablished(session);
+
+        //Act
+        handler.heartbeat();
+
+        //Assert
+        assertAll("reap",
+                () -> assertEquals(1, handler.getReapedSessions()),
+                () -> assertEquals(0, handler.getLiveSessions())
+        );
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    @Test
+    void heartbeat_ShouldPingActiveSessions() throws Exception {
+        //Arrange
+        handler = handler(WebSocketHandler.SlowConsumerPolicy.CLOSE, 60_000);
+        WebSocketSession session = sesion("1", null);
+        handler.afterConnectionEstablished(session);
+
+        //Act
+        handler.heartbeat();
+
+        //Assert
+        assertEquals(0, handler.getReapedSessions());
+        verify(session).sendMessage(any(PingMessage.class));
+        verify(session, never()).close(any(CloseStatus.class));
+    }
+
+    // Buffer de 16 bytes: GRANDE no cabe mientras LENTO sigue enviándose
+    private WebSocketHandler handler(WebSocketHandler.SlowConsumerPolicy policy, long idleTimeoutMs) {
+        return new WebSocketHandler("Videojuegos", 100, 5000, 16, policy, objectMapper,
+                new NotificationReplayBuffer(10), 0, idleTimeoutMs, new SimpleMeterRegistry());
+    }
+
+    private NotificationReplayBuffer.Entry entrada(String json) throws Exception {
+        return entradas.append(seq -> json, NotificationTopic.of(1L, "Nintendo", "Party"));
+    }
+
+    private WebSocketSession sesion(String id, String protocol) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getAcceptedProtocol()).thenReturn(protocol);
+        return session;
+    }
+
+    // El envío de LENTO se queda bloqueado hasta liberar, como un cliente que deja de leer
+    private WebSocketSession sesionLenta(String id) throws Exception {
+        WebSocketSession session = sesion(id, null);
+        doAnswer(invocation -> {
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            if (LENTO.equals(message.getPayload())) {
+                liberar.await(5, TimeUnit.SECONDS);
+            }
+            return null;
+        }).when(session).sendMessage(any());
+        return session;
+    }
+}
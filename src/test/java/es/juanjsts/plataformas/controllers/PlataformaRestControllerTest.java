@@ -25,7 +25,8 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
-@SpringBootTest
+// Sin calentamiento de caches: llamaría a los servicios simulados antes de cada verificación
+@SpringBootTest(properties = "cache.warmup.enabled=false")
 @AutoConfigureMockMvc
 class PlataformaRestControllerTest {
     private final String ENDPOINT = "/api/v1/plataformas";
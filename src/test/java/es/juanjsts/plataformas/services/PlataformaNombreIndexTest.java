@@ -0,0 +1,123 @@
+package es.juanjsts.plataformas.services;
+
+import es.juanjsts.config.cache.ClusterCacheInvalidator;
+import es.juanjsts.config.cache.EntityGenerations;
+import es.juanjsts.rest.plataformas.models.Plataforma;
+import es.juanjsts.rest.plataformas.repositories.PlataformaRepository;
+import es.juanjsts.rest.plataformas.services.PlataformaNombreIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlataformaNombreIndexTest {
+    private final Plataforma nintendo = Plataforma.builder().id(1L).nombre("Nintendo").isDeleted(false).build();
+    private final Plataforma playStation = Plataforma.builder().id(2L).nombre("PlayStation").isDeleted(false).build();
+
+    @Mock
+    private PlataformaRepository plataformaRepository;
+
+    @Mock
+    private ClusterCacheInvalidator invalidator;
+
+    private PlataformaNombreIndex index;
+    private Consumer<String> onGeneration;
+
+    @BeforeEach
+    void setUp() {
+        index = new PlataformaNombreIndex(plataformaRepository, invalidator);
+        index.afterPropertiesSet();
+        ArgumentCaptor<Consumer<String>> listener = ArgumentCaptor.captor();
+        verify(invalidator).onGeneration(listener.capture());
+        onGeneration = listener.getValue();
+    }
+
+    @Test
+    void find_ShouldFallBackToRepositoryAndFillIndex_WhenNombreIsMissing() {
+        //Arrange
+        when(plataformaRepository.findAll()).thenReturn(List.of(nintendo));
+        when(plataformaRepository.findByNombreEqualsIgnoreCase("playstation")).thenReturn(Optional.of(playStation));
+
+        //Act
+        var primera = index.find("playstation");
+        var segunda = index.find("PLAYSTATION");
+
+        //Assert
+        assertAll("fallback",
+                () -> assertEquals(2L, primera.orElseThrow().id()),
+                () -> assertEquals(2L, segunda.orElseThrow().id())
+        );
+        verify(plataformaRepository, times(1)).findByNombreEqualsIgnoreCase(any());
+    }
+
+    @Test
+    void find_ShouldReloadIndex_WhenPlataformasGenerationArrivesFromOtherNode() {
+        //Arrange
+        when(plataformaRepository.findAll()).thenReturn(List.of(nintendo), List.of(playStation));
+        index.find("Nintendo");
+
+        //Act
+        onGeneration.accept(EntityGenerations.VIDEOJUEGOS);
+        index.find("Nintendo");
+        onGeneration.accept(EntityGenerations.PLATAFORMAS);
+        var recargada = index.find("PlayStation");
+
+        //Assert
+        assertEquals(2L, recargada.orElseThrow().id());
+        verify(plataformaRepository, times(2)).findAll();
+        verify(plataformaRepository, never()).findByNombreEqualsIgnoreCase(any());
+    }
+
+    @Test
+    void put_ShouldApplyAfterCommit_WhenTransactionIsActive() {
+        //Arrange
+        when(plataformaRepository.findAll()).thenReturn(List.of(nintendo));
+        when(plataformaRepository.findByNombreEqualsIgnoreCase("PlayStation")).thenReturn(Optional.empty());
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.put(playStation);
+            var antesDelCommit = index.find("PlayStation");
+
+            //Act
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            var trasElCommit = index.find("PlayStation");
+
+            //Assert
+            assertAll("tras el commit",
+                    () -> assertTrue(antesDelCommit.isEmpty()),
+                    () -> assertEquals(2L, trasElCommit.orElseThrow().id())
+            );
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void remove_ShouldKeepEntry_WhenTransactionIsNotCommitted() {
+        //Arrange
+        when(plataformaRepository.findAll()).thenReturn(List.of(nintendo));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            //Act
+            index.remove(1L);
+            var sinCommit = index.find("Nintendo");
+
+            //Assert
+            assertEquals(1L, sinCommit.orElseThrow().id());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package es.juanjsts.plataformas.services;
 
+import es.juanjsts.config.cache.EntityGenerations;
 import es.juanjsts.rest.plataformas.dto.PlataformaCreatedDto;
 import es.juanjsts.rest.plataformas.dto.PlataformaUpdateDto;
 import es.juanjsts.rest.plataformas.exceptions.PlataformaConflictException;
 import es.juanjsts.rest.plataformas.mappers.PlataformaMapper;
 import es.juanjsts.rest.plataformas.models.Plataforma;
 import es.juanjsts.rest.plataformas.repositories.PlataformaRepository;
+import es.juanjsts.rest.plataformas.services.PlataformaNombreIndex;
 import es.juanjsts.rest.plataformas.services.PlataformaServiceImpl;
+import es.juanjsts.rest.videojuegos.services.VideojuegoSearchIndex;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -53,6 +56,15 @@ class PlataformaServiceImplTest {
     @Mock
     private PlataformaRepository plataformaRepository;
 
+    @Mock
+    private PlataformaNombreIndex plataformaNombreIndex;
+
+    @Mock
+    private EntityGenerations entityGenerations;
+
+    @Mock
+    private VideojuegoSearchIndex videojuegoSearchIndex;
+
     @Spy
     private PlataformaMapper plataformaMapper;
 
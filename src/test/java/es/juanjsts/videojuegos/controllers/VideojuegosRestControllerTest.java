@@ -18,6 +18,7 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.assertj.MockMvcTester;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,7 +26,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
-@SpringBootTest
+// Sin calentamiento de caches: llamaría a los servicios simulados antes de cada verificación
+@SpringBootTest(properties = "cache.warmup.enabled=false")
 @AutoConfigureMockMvc
 class VideojuegosRestControllerTest {
 
@@ -228,6 +230,61 @@ class VideojuegosRestControllerTest {
 
     }
 
+    @Test
+    void getById_ShouldReturnNotModified_WhenETagMatches() {
+        //Arrange
+        var videojuego = VideojuegoResponseDto.builder()
+                .id(1L)
+                .nombre("Marvel Rivals")
+                .plataforma("Nintendo")
+                .updatedAt(LocalDateTime.of(2025, 1, 1, 12, 0))
+                .build();
+        when(videojuegosService.findById(1L)).thenReturn(videojuego);
+        String etag = mockMvcTester.get().uri(ENDPOINT + "/1").exchange().getResponse().getHeader("ETag");
+
+        //Act
+        var resultado = mockMvcTester.get()
+                .uri(ENDPOINT + "/1")
+                .header("If-None-Match", etag)
+                .exchange();
+
+        //Assert
+        assertThat(resultado)
+                .hasStatus(HttpStatus.NOT_MODIFIED)
+                .body().isEmpty();
+    }
+
+    @Test
+    void getById_ShouldReturnOk_WhenUpdatedWithinSameMillisecond() {
+        //Arrange
+        var antes = VideojuegoResponseDto.builder()
+                .id(1L)
+                .nombre("Marvel Rivals")
+                .plataforma("Nintendo")
+                .updatedAt(LocalDateTime.of(2025, 1, 1, 12, 0, 0, 100))
+                .build();
+        var despues = VideojuegoResponseDto.builder()
+                .id(1L)
+                .nombre("Marvel Rivals 2")
+                .plataforma("Nintendo")
+                .updatedAt(LocalDateTime.of(2025, 1, 1, 12, 0, 0, 200))
+                .build();
+        when(videojuegosService.findById(1L)).thenReturn(antes, despues);
+        String etag = mockMvcTester.get().uri(ENDPOINT + "/1").exchange().getResponse().getHeader("ETag");
+
+        //Act
+        var resultado = mockMvcTester.get()
+                .uri(ENDPOINT + "/1")
+                .header("If-None-Match", etag)
+                .exchange();
+
+        //Assert
+        assertThat(resultado)
+                .hasStatus(HttpStatus.OK)
+                .bodyJson().satisfies(json ->
+                        assertThat(json).extractingPath("$.nombre").isEqualTo("Marvel Rivals 2"));
+    }
+
     @Test
     void create() {
         //Arrange
@@ -0,0 +1,192 @@
+package es.juanjsts.videojuegos.services;
+
+import es.juanjsts.cluster.models.CacheInvalidation;
+import es.juanjsts.config.cache.ClusterCacheInvalidator;
+import es.juanjsts.rest.plataformas.models.Plataforma;
+import es.juanjsts.rest.videojuegos.models.Videojuego;
+import es.juanjsts.rest.videojuegos.repositories.VideojuegosRepository;
+import es.juanjsts.rest.videojuegos.services.VideojuegoSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VideojuegoSearchIndexTest {
+    private final Plataforma nintendo = Plataforma.builder().id(1L).nombre("Nintendo").build();
+    private final Plataforma playstation = Plataforma.builder().id(2L).nombre("PlayStation").build();
+
+    @Mock
+    private VideojuegosRepository videojuegosRepository;
+
+    @Mock
+    private ClusterCacheInvalidator invalidator;
+
+    @InjectMocks
+    private VideojuegoSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(videojuegosRepository.findAll()).thenReturn(List.of(
+                Videojuego.builder().id(1L).nombre("Mario Kart").genero("Carreras").plataforma(nintendo).build(),
+                Videojuego.builder().id(2L).nombre("Gran Turismo").genero("Carreras").plataforma(playstation).build(),
+                Videojuego.builder().id(3L).nombre("Carrera de Mario").genero("Plataformas").plataforma(nintendo).build()
+        ));
+        index.rebuild();
+    }
+
+    @Test
+    void search_ShouldRankNameMatchesFirst_AndMatchLastTermAsPrefix() {
+        //Act
+        var resultado = index.search("carrer", Optional.empty(), PageRequest.of(0, 10));
+
+        //Assert
+        assertAll("ranking",
+                () -> assertEquals(List.of(3L, 1L, 2L), resultado.getContent()),
+                () -> assertEquals(3, resultado.getTotalElements())
+        );
+    }
+
+    @Test
+    void search_ShouldRequireAllTerms_AndIgnoreAccents() {
+        //Act
+        var resultado = index.search("Marío nintendo", Optional.empty(), PageRequest.of(0, 10));
+
+        //Assert
+        assertEquals(List.of(1L, 3L), resultado.getContent());
+    }
+
+    @Test
+    void put_ShouldReplacePreviousTerms() {
+        //Arrange
+        index.put(Videojuego.builder().id(2L).nombre("Horizon").genero("Aventura").plataforma(playstation).build());
+
+        //Act
+        var turismo = index.search("turismo", Optional.empty(), PageRequest.of(0, 10));
+        var horizon = index.search("hori", Optional.empty(), PageRequest.of(0, 10));
+
+        //Assert
+        assertAll("reindexado",
+                () -> assertTrue(turismo.isEmpty()),
+                () -> assertEquals(List.of(2L), horizon.getContent())
+        );
+    }
+
+    @Test
+    void renamePlataforma_ShouldReindexItsVideojuegos() {
+        //Act
+        index.renamePlataforma(1L, "Switch");
+
+        //Assert
+        assertAll("plataforma renombrada",
+                () -> assertEquals(List.of(1L, 3L), index.search("switch", Optional.empty(), PageRequest.of(0, 10)).getContent()),
+                () -> assertTrue(index.search("nintendo", Optional.empty(), PageRequest.of(0, 10)).isEmpty())
+        );
+    }
+
+    @Test
+    void put_ShouldApplyAfterCommit_WhenTransactionIsActive() {
+        //Arrange
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.put(Videojuego.builder().id(4L).nombre("Zelda").genero("Aventura").plataforma(nintendo).build());
+            var antesDelCommit = index.search("zelda", Optional.empty(), PageRequest.of(0, 10));
+
+            //Act
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            var trasElCommit = index.search("zelda", Optional.empty(), PageRequest.of(0, 10));
+
+            //Assert
+            assertAll("tras el commit",
+                    () -> assertTrue(antesDelCommit.isEmpty()),
+                    () -> assertEquals(List.of(4L), trasElCommit.getContent())
+            );
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void afterPropertiesSet_ShouldReindexOnlyChangedVideojuego_WhenKeyArrivesFromOtherNode() {
+        //Arrange
+        ArgumentCaptor<Consumer<CacheInvalidation>> listener = ArgumentCaptor.captor();
+        index.afterPropertiesSet();
+        verify(invalidator).onInvalidation(listener.capture());
+        when(videojuegosRepository.findById(2L)).thenReturn(Optional.of(
+                Videojuego.builder().id(2L).nombre("Halo").genero("Shooter").plataforma(playstation).build()
+        ));
+        when(videojuegosRepository.findById(3L)).thenReturn(Optional.empty());
+
+        //Act
+        listener.getValue().accept(CacheInvalidation.evict("videojuegos", 2L));
+        listener.getValue().accept(CacheInvalidation.evict("videojuegos", 3L));
+
+        //Assert
+        assertAll("incremental",
+                () -> assertEquals(List.of(2L), index.search("halo", Optional.empty(), PageRequest.of(0, 10)).getContent()),
+                () -> assertEquals(List.of(1L), index.search("mario", Optional.empty(), PageRequest.of(0, 10)).getContent()),
+                () -> assertTrue(index.search("turismo", Optional.empty(), PageRequest.of(0, 10)).isEmpty())
+        );
+        verify(videojuegosRepository, times(1)).findAll();
+    }
+
+    @Test
+    void afterPropertiesSet_ShouldReindexPlataformaVideojuegos_WhenPlataformaKeyArrivesFromOtherNode() {
+        //Arrange
+        ArgumentCaptor<Consumer<CacheInvalidation>> listener = ArgumentCaptor.captor();
+        index.afterPropertiesSet();
+        verify(invalidator).onInvalidation(listener.capture());
+        Plataforma switchPlataforma = Plataforma.builder().id(1L).nombre("Switch").build();
+        when(videojuegosRepository.findByPlataforma(any())).thenReturn(List.of(
+                Videojuego.builder().id(1L).nombre("Mario Kart").genero("Carreras").plataforma(switchPlataforma).build(),
+                Videojuego.builder().id(3L).nombre("Carrera de Mario").genero("Plataformas").plataforma(switchPlataforma).build()
+        ));
+
+        //Act
+        listener.getValue().accept(CacheInvalidation.evict("plataformas", "Nintendo"));
+        listener.getValue().accept(CacheInvalidation.evict("plataformas", 1L));
+
+        //Assert
+        assertAll("plataforma de otro nodo",
+                () -> assertEquals(List.of(1L, 3L), index.search("switch", Optional.empty(), PageRequest.of(0, 10)).getContent()),
+                () -> assertTrue(index.search("nintendo", Optional.empty(), PageRequest.of(0, 10)).isEmpty())
+        );
+        verify(videojuegosRepository, times(1)).findByPlataforma(any());
+        verify(videojuegosRepository, times(1)).findAll();
+    }
+
+    @Test
+    void search_ShouldReload_WhenRegionIsClearedOnOtherNode() {
+        //Arrange
+        ArgumentCaptor<Consumer<CacheInvalidation>> listener = ArgumentCaptor.captor();
+        index.afterPropertiesSet();
+        verify(invalidator).onInvalidation(listener.capture());
+        when(videojuegosRepository.findAll()).thenReturn(List.of(
+                Videojuego.builder().id(5L).nombre("Halo").genero("Shooter").plataforma(playstation).build()
+        ));
+
+        //Act
+        listener.getValue().accept(CacheInvalidation.clear("videojuegos"));
+        var resultado = index.search("halo", Optional.empty(), PageRequest.of(0, 10));
+
+        //Assert
+        assertAll("recargado",
+                () -> assertEquals(List.of(5L), resultado.getContent()),
+                () -> assertEquals(1, index.size())
+        );
+        verify(videojuegosRepository, times(2)).findAll();
+    }
+}
@@ -1,9 +1,11 @@
 package es.juanjsts.videojuegos.services;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import es.juanjsts.config.websockets.WebSocketConfig;
-import es.juanjsts.config.websockets.WebSocketHandler;
+import es.juanjsts.config.cache.EntityGenerations;
+import es.juanjsts.config.cache.NegativeCache;
+import es.juanjsts.config.cache.SerializedResponseCache;
+import es.juanjsts.config.cache.UuidCacheIndex;
 import es.juanjsts.rest.plataformas.models.Plataforma;
+import es.juanjsts.rest.plataformas.services.PlataformaNombreIndex;
 import es.juanjsts.rest.plataformas.services.PlataformaService;
 import es.juanjsts.rest.videojuegos.dto.VideojuegoCreateDto;
 import es.juanjsts.rest.videojuegos.dto.VideojuegoResponseDto;
@@ -13,9 +15,12 @@ import es.juanjsts.rest.videojuegos.exceptions.VideojuegoNotFoundException;
 import es.juanjsts.rest.videojuegos.mappers.VideojuegoMapper;
 import es.juanjsts.rest.videojuegos.models.Videojuego;
 import es.juanjsts.rest.videojuegos.repositories.VideojuegosRepository;
+import es.juanjsts.rest.videojuegos.services.VideojuegoSearchIndex;
 import es.juanjsts.rest.videojuegos.services.VideojuegoServiceImpl;
 import es.juanjsts.websockets.notifications.mappers.VideojuegoNotificationMapper;
 import es.juanjsts.websockets.notifications.models.Notificacion;
+import es.juanjsts.websockets.notifications.models.NotificationTopic;
+import es.juanjsts.websockets.notifications.services.NotificationOutbox;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -71,20 +76,32 @@ class VideojuegoServiceImplTest {
     @Mock
     private PlataformaService plataformaService;
 
+    @Mock
+    private PlataformaNombreIndex plataformaNombreIndex;
+
     @Spy
     private VideojuegoMapper videojuegoMapper;
 
     @Mock
-    private WebSocketConfig webSocketConfig;
+    private VideojuegoNotificationMapper videojuegoNotificationMapper;
+
+    @Mock
+    private NotificationOutbox notificationOutbox;
 
     @Mock
-    private VideojuegoNotificationMapper videojuegoNotificationMapper;
+    private UuidCacheIndex uuidCacheIndex;
 
     @Mock
-    private ObjectMapper objectMapper;
+    private EntityGenerations entityGenerations;
 
     @Mock
-    private WebSocketHandler webSocketService;
+    private NegativeCache negativeCache;
+
+    @Mock
+    private VideojuegoSearchIndex videojuegoSearchIndex;
+
+    @Mock
+    private SerializedResponseCache serializedResponseCache;
 
     @InjectMocks
     private VideojuegoServiceImpl videojuegoService;
@@ -92,10 +109,15 @@ class VideojuegoServiceImplTest {
     @Captor
     private ArgumentCaptor<Videojuego> videojuegoCaptor;
 
+    @Captor
+    private ArgumentCaptor<Notificacion<?>> notificacionCaptor;
+
+    @Captor
+    private ArgumentCaptor<NotificationTopic> topicCaptor;
+
     @BeforeEach
     void setUp() {
         videojuegoResponse = videojuegoMapper.toVideojuegoResponseDto(videojuego1);
-        videojuegoService.setWebSocketService(webSocketService);
     }
 
     @Test
@@ -220,6 +242,24 @@ class VideojuegoServiceImplTest {
 
         //Verify
         verify(videojuegosRepository).findById(id);
+        verify(negativeCache).markMissing("videojuegos", id);
+    }
+
+    @Test
+    void findById_ShouldThrowWithoutQuerying_WhenIdIsKnownMissing() {
+        //Arrange
+        Long id = 99L;
+        when(negativeCache.isMissing("videojuegos", id)).thenReturn(true);
+
+        //Act y Assert
+        var res = assertThrows(VideojuegoNotFoundException.class, () -> videojuegoService.findById(id));
+        assertAll("cache negativa",
+                () -> assertEquals("Videojuego con id: " + id + " no encontrado", res.getMessage()),
+                () -> assertEquals(0, res.getStackTrace().length)
+        );
+
+        //Verify
+        verify(videojuegosRepository, never()).findById(anyLong());
     }
 
 
@@ -240,6 +280,22 @@ class VideojuegoServiceImplTest {
         verify(videojuegosRepository).findByUuid(expectedUuid);
     }
 
+    @Test
+    void findByUuid_ShouldReturnCachedVideojuego_WhenUuidIsIndexed() {
+        //Arrange
+        UUID expectedUuid = videojuego1.getUuid();
+        when(uuidCacheIndex.get("videojuegos", expectedUuid, VideojuegoResponseDto.class)).thenReturn(videojuegoResponse);
+
+        //Act
+        VideojuegoResponseDto actualVideojuegoResponse = videojuegoService.findByUuid(expectedUuid.toString());
+
+        //Assert
+        assertEquals(videojuegoResponse, actualVideojuegoResponse);
+
+        //Verify
+        verify(videojuegosRepository, never()).findByUuid(any());
+    }
+
     @Test
     void findByUuid_ShouldReturnVideojuego_WhenInvalidUuidProvided() {
         //Arrange
@@ -277,9 +333,9 @@ class VideojuegoServiceImplTest {
                 .build();
 
         VideojuegoResponseDto expectedVideojuegoResponse = videojuegoMapper.toVideojuegoResponseDto(expectedVideojuego);
-        when(plataformaService.findByNombre(videojuegoCreateDto.getPlataforma())).thenReturn(plataforma);
+        when(plataformaNombreIndex.find(videojuegoCreateDto.getPlataforma()))
+                .thenReturn(Optional.of(new PlataformaNombreIndex.Entrada(1L, "Nintendo", false, null)));
         when(videojuegosRepository.save(any(Videojuego.class))).thenReturn(expectedVideojuego);
-        doNothing().when(webSocketService).sendMessage(any());
 
         //Act
         VideojuegoResponseDto actualResponseDto = videojuegoService.save(videojuegoCreateDto);
@@ -292,6 +348,7 @@ class VideojuegoServiceImplTest {
 
         Videojuego videojuegoCaptured = videojuegoCaptor.getValue();
         assertEquals(expectedVideojuego.getNombre(), videojuegoCaptured. getNombre());
+        verify(notificationOutbox).record(eq("VIDEOJUEGOS-" + expectedVideojuego.getId()), any(), any());
     }
 
     @Test
@@ -309,7 +366,6 @@ class VideojuegoServiceImplTest {
 
         videojuegoResponse.setCosto(costo);
         VideojuegoResponseDto expectedVideojuegoResponse = videojuegoResponse;
-        doNothing().when(webSocketService).sendMessage(any());
 
         //Act
         VideojuegoResponseDto actualVideojuegoResponse = videojuegoService.update(id, videojuegoUpdateDto);
@@ -323,6 +379,8 @@ class VideojuegoServiceImplTest {
         //Verify
         verify(videojuegosRepository).findById(id);
         verify(videojuegosRepository).save(any());
+        verify(notificationOutbox).record(eq("VIDEOJUEGOS-" + id), any(), any());
+        verify(serializedResponseCache).evict(SerializedResponseCache.VIDEOJUEGOS, id);
     }
 
     @Test
@@ -351,7 +409,6 @@ class VideojuegoServiceImplTest {
         //Arrange
         Long  id = 1L;
         when(videojuegosRepository.findById(id)).thenReturn(Optional.of(videojuego1));
-        doNothing().when(webSocketService).sendMessage(any());
 
         //Act con AssertJ
         assertThatCode(() -> videojuegoService.deleteById(id))
@@ -359,6 +416,8 @@ class VideojuegoServiceImplTest {
 
         //Verify
         verify(videojuegosRepository).deleteById(id);
+        verify(notificationOutbox).record(eq("VIDEOJUEGOS-" + id), any(), any());
+        verify(serializedResponseCache).evict(SerializedResponseCache.VIDEOJUEGOS, id);
     }
 
     @Test
@@ -377,11 +436,20 @@ class VideojuegoServiceImplTest {
     }
 
     @Test
-    void onChange_ShouldSendMessage_WhenValidDataProvided() throws IOException {
+    void onChange_ShouldSendMessage_WhenValidDataProvided() {
         //Arrange
-        doNothing().when(webSocketService).sendMessage(any());
+        Long id = 1L;
+        when(videojuegosRepository.findById(id)).thenReturn(Optional.of(videojuego1));
 
         //Act
-//        videojuegoService.onChange(Notificacion.Tipo.CREATE, videojuego1);
+        videojuegoService.deleteById(id);
+
+        //Assert
+        verify(notificationOutbox).record(eq("VIDEOJUEGOS-" + id), notificacionCaptor.capture(), topicCaptor.capture());
+        assertAll("onChange",
+                () -> assertEquals(Notificacion.Tipo.DELETE, notificacionCaptor.getValue().type()),
+                () -> assertEquals(Set.of(id), topicCaptor.getValue().ids()),
+                () -> assertEquals(Set.of("nintendo"), topicCaptor.getValue().plataformas())
+        );
     }
 }
\ No newline at end of file
@@ -0,0 +1,235 @@
+package es.juanjsts.websockets.notifications.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.juanjsts.cluster.models.ClusterEvent;
+import es.juanjsts.cluster.services.ClusterBus;
+import es.juanjsts.config.websockets.WebSocketConfig;
+import es.juanjsts.config.websockets.WebSocketHandler;
+import es.juanjsts.websockets.notifications.dto.VideojuegoDeltaNotificationResponse;
+import es.juanjsts.websockets.notifications.models.Notificacion;
+import es.juanjsts.websockets.notifications.models.NotificationOutboxEvent;
+import es.juanjsts.websockets.notifications.models.NotificationPayload;
+import es.juanjsts.websockets.notifications.models.NotificationTopic;
+import es.juanjsts.websockets.notifications.repositories.NotificationOutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationBroadcasterImplTest {
+    @Mock
+    private WebSocketConfig webSocketConfig;
+
+    @Mock
+    private WebSocketHandler webSocketHandler;
+
+    @Mock
+    private NotificationDispatcher notificationDispatcher;
+
+    @Mock
+    private SseNotificationService sseNotificationService;
+
+    @Mock
+    private ClusterBus clusterBus;
+
+    @Mock
+    private NotificationMetrics notificationMetrics;
+
+    @Mock
+    private NotificationOutboxRepository outboxRepository;
+
+    @Captor
+    private ArgumentCaptor<Consumer<ClusterEvent>> listenerCaptor;
+
+    @Captor
+    private ArgumentCaptor<Runnable> envioCaptor;
+
+    @Captor
+    private ArgumentCaptor<NotificationReplayBuffer.Entry> entryCaptor;
+
+    private NotificationBroadcasterImpl broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        when(webSocketConfig.webSocketVideojuegosHandler()).thenReturn(webSocketHandler);
+        lenient().when(notificationDispatcher.publish(any(), any())).thenReturn(new CompletableFuture<>());
+        // Ventana larga: en el test se vacía a mano con flush()
+        broadcaster = new NotificationBroadcasterImpl(webSocketConfig, new ObjectMapper(), notificationDispatcher,
+                new NotificationReplayBuffer(10), sseNotificationService, clusterBus, notificationMetrics, true, 60_000);
+        broadcaster.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.destroy();
+    }
+
+    @Test
+    void flush_ShouldSendOneBatch_WhenSeveralChangesInWindow() throws Exception {
+        //Arrange
+        broadcaster.broadcast("VIDEOJUEGOS-1", notificacion(Notificacion.Tipo.CREATE, "v1"), NotificationTopic.of(1L, "Nintendo", "Party"));
+        broadcaster.broadcast("VIDEOJUEGOS-1", notificacion(Notificacion.Tipo.UPDATE, "v2"), NotificationTopic.of(1L, "Nintendo", "Party"));
+        broadcaster.broadcast("VIDEOJUEGOS-2", notificacion(Notificacion.Tipo.DELETE, "v1"), NotificationTopic.of(2L, "PlayStation", "Shooter"));
+
+        //Act
+        broadcaster.flush();
+
+        //Assert
+        verify(notificationDispatcher, times(1)).publish(startsWith("BATCH-VIDEOJUEGOS-"), envioCaptor.capture());
+        envioCaptor.getValue().run();
+        verify(webSocketHandler).sendMessage(entryCaptor.capture());
+        verify(sseNotificationService).send(any());
+        verify(clusterBus, times(3)).publish(startsWith("VIDEOJUEGOS-"), any(), any());
+
+        var entry = entryCaptor.getValue();
+        var frame = new ObjectMapper().readTree(entry.json());
+        assertAll("batch",
+                () -> assertEquals("BATCH", frame.get("type").asText()),
+                () -> assertEquals(1, frame.get("seq").asLong()),
+                () -> assertEquals(2, frame.get("data").size()),
+                () -> assertEquals("CREATE", frame.get("data").get(0).get("type").asText()),
+                () -> assertEquals("v2", frame.get("data").get(0).get("data").asText()),
+                () -> assertEquals(Set.of(1L, 2L), entry.topic().ids()),
+                () -> assertEquals(2, entry.lote().topics().size()),
+                () -> assertEquals(Set.of(2L), entry.lote().topics().get(1).ids())
+        );
+    }
+
+    @Test
+    void flush_ShouldMergeDeltas_WhenSeveralPartialUpdatesInWindow() throws Exception {
+        //Arrange
+        var nombre = new VideojuegoDeltaNotificationResponse(1L, "v1", "Mario", null, null, null, null);
+        var costo = new VideojuegoDeltaNotificationResponse(1L, "v2", null, null, null, null, 9.99);
+        broadcaster.broadcast("VIDEOJUEGOS-1", new Notificacion<>("VIDEOJUEGOS", Notificacion.Tipo.UPDATE, nombre, "2025-01-01T00:00"), NotificationTopic.of(1L, "Nintendo", "Party"));
+        broadcaster.broadcast("VIDEOJUEGOS-1", new Notificacion<>("VIDEOJUEGOS", Notificacion.Tipo.UPDATE, costo, "2025-01-01T00:01"), NotificationTopic.of(1L, "Nintendo", "Party"));
+
+        //Act
+        broadcaster.flush();
+
+        //Assert
+        verify(notificationDispatcher).publish(eq("VIDEOJUEGOS-1"), envioCaptor.capture());
+        envioCaptor.getValue().run();
+        verify(webSocketHandler).sendMessage(entryCaptor.capture());
+
+        var data = new ObjectMapper().readTree(entryCaptor.getValue().json()).get("data");
+        assertAll("delta",
+                () -> assertTrue(data.get("delta").asBoolean()),
+                () -> assertEquals("v2", data.get("version").asText()),
+                () -> assertEquals("Mario", data.get("nombre").asText()),
+                () -> assertEquals(9.99, data.get("costo").asDouble()),
+                () -> assertFalse(data.has("genero"))
+        );
+    }
+
+    @Test
+    void broadcast_ShouldCompleteEveryCoalescedChange_WhenBatchIsDelivered() {
+        //Arrange
+        CompletableFuture<Void> entrega = new CompletableFuture<>();
+        when(notificationDispatcher.publish(any(), any())).thenReturn(entrega);
+        var primero = broadcaster.broadcast("VIDEOJUEGOS-1", notificacion(Notificacion.Tipo.CREATE, "v1"), NotificationTopic.of(1L, "Nintendo", "Party"));
+        var segundo = broadcaster.broadcast("VIDEOJUEGOS-1", notificacion(Notificacion.Tipo.UPDATE, "v2"), NotificationTopic.of(1L, "Nintendo", "Party"));
+        var tercero = broadcaster.broadcast("VIDEOJUEGOS-2", notificacion(Notificacion.Tipo.DELETE, "v1"), NotificationTopic.of(2L, "PlayStation", "Shooter"));
+        broadcaster.flush();
+
+        //Act
+        entrega.complete(null);
+
+        //Assert
+        assertAll("entregas",
+                () -> assertTrue(primero.isDone()),
+                () -> assertTrue(segundo.isDone()),
+                () -> assertTrue(tercero.isDone()),
+                () -> assertFalse(primero.isCompletedExceptionally())
+        );
+    }
+
+    @Test
+    void flush_ShouldMergeDeltas_WhenRelayedFromOutbox() throws Exception {
+        //Arrange
+        var objectMapper = new ObjectMapper();
+        // Con la ventana de agrupación abierta el relay no espera a la entrega
+        var relay = new NotificationOutboxRelay(outboxRepository, broadcaster, objectMapper, 60_000, 10, 10);
+        var nombre = new Notificacion<>("VIDEOJUEGOS", Notificacion.Tipo.UPDATE,
+                new VideojuegoDeltaNotificationResponse(1L, "v1", "Mario", null, null, null, null), "2025-01-01T00:00");
+        var costo = new Notificacion<>("VIDEOJUEGOS", Notificacion.Tipo.UPDATE,
+                new VideojuegoDeltaNotificationResponse(1L, "v2", null, null, null, null, 9.99), "2025-01-01T00:01");
+        when(outboxRepository.findAllByOrderByIdAsc(any())).thenReturn(List.of(fila(1L, nombre), fila(2L, costo)));
+
+        //Act
+        relay.relayBatch();
+        broadcaster.flush();
+
+        //Assert
+        verify(notificationDispatcher).publish(eq("VIDEOJUEGOS-1"), envioCaptor.capture());
+        envioCaptor.getValue().run();
+        verify(webSocketHandler).sendMessage(entryCaptor.capture());
+
+        var data = objectMapper.readTree(entryCaptor.getValue().json()).get("data");
+        assertAll("delta",
+                () -> assertEquals("v2", data.get("version").asText()),
+                () -> assertEquals("Mario", data.get("nombre").asText()),
+                () -> assertEquals(9.99, data.get("costo").asDouble())
+        );
+    }
+
+    @Test
+    void flush_ShouldMergeDeltas_WhenReceivedFromOtherNode() throws Exception {
+        //Arrange
+        var objectMapper = new ObjectMapper();
+        verify(clusterBus).subscribe(listenerCaptor.capture());
+        var nombre = new Notificacion<>("VIDEOJUEGOS", Notificacion.Tipo.UPDATE,
+                new VideojuegoDeltaNotificationResponse(1L, "v1", "Mario", null, null, null, null), "2025-01-01T00:00");
+        var costo = new Notificacion<>("VIDEOJUEGOS", Notificacion.Tipo.UPDATE,
+                new VideojuegoDeltaNotificationResponse(1L, "v2", null, null, null, null, 9.99), "2025-01-01T00:01");
+
+        //Act
+        // Por UDP el evento llega como JSON y el payload se lee como mapa
+        for (var notificacion : List.of(nombre, costo)) {
+            Notificacion<Object> comoMapa = objectMapper.convertValue(notificacion, new TypeReference<>() {});
+            listenerCaptor.getValue().accept(new ClusterEvent("otro:" + notificacion.data().version(), "otro", "VIDEOJUEGOS-1",
+                    comoMapa, NotificationPayload.of(notificacion), NotificationTopic.of(1L, "Nintendo", "Party"), null));
+        }
+        broadcaster.flush();
+
+        //Assert
+        verify(notificationDispatcher).publish(eq("VIDEOJUEGOS-1"), envioCaptor.capture());
+        envioCaptor.getValue().run();
+        verify(webSocketHandler).sendMessage(entryCaptor.capture());
+
+        var data = objectMapper.readTree(entryCaptor.getValue().json()).get("data");
+        assertAll("delta",
+                () -> assertEquals("v2", data.get("version").asText()),
+                () -> assertEquals("Mario", data.get("nombre").asText()),
+                () -> assertEquals(9.99, data.get("costo").asDouble())
+        );
+    }
+
+    private NotificationOutboxEvent fila(Long id, Notificacion<?> notificacion) throws Exception {
+        var objectMapper = new ObjectMapper();
+        return NotificationOutboxEvent.builder()
+                .id(id)
+                .key("VIDEOJUEGOS-1")
+                .notificacion(objectMapper.writeValueAsString(notificacion))
+                .payloadType(NotificationPayload.of(notificacion))
+                .topic(objectMapper.writeValueAsString(NotificationTopic.of(1L, "Nintendo", "Party")))
+                .build();
+    }
+
+    private Notificacion<String> notificacion(Notificacion.Tipo tipo, String data) {
+        return new Notificacion<>("VIDEOJUEGOS", tipo, data, "2025-01-01T00:00");
+    }
+}
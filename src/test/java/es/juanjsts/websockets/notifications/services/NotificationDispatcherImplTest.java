@@ -0,0 +1,80 @@
+package es.juanjsts.websockets.notifications.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationDispatcherImplTest {
+
+    @Test
+    void publish_ShouldDropOldest_WhenQueueIsFull() {
+        //Arrange (sin arrancar los hilos, la cola no se vacía)
+        NotificationDispatcherImpl dispatcher = new NotificationDispatcherImpl(2, NotificationDispatcher.OverflowPolicy.DROP_OLDEST, 1);
+
+        //Act
+        var descartada = dispatcher.publish("VIDEOJUEGOS-1", () -> {});
+        var pendiente = dispatcher.publish("VIDEOJUEGOS-2", () -> {});
+        dispatcher.publish("VIDEOJUEGOS-3", () -> {});
+
+        //Assert
+        assertAll("dropOldest",
+                () -> assertTrue(descartada.isCompletedExceptionally()),
+                () -> assertFalse(pendiente.isDone()),
+                () -> assertEquals(2, dispatcher.getQueueDepth()),
+                () -> assertEquals(1, dispatcher.getDroppedCount()),
+                () -> assertEquals(0, dispatcher.getCoalescedCount())
+        );
+    }
+
+    @Test
+    void publish_ShouldCoalesceSameKey_WhenQueueIsFull() throws Exception {
+        //Arrange
+        NotificationDispatcherImpl dispatcher = new NotificationDispatcherImpl(2, NotificationDispatcher.OverflowPolicy.COALESCE, 1);
+        AtomicReference<String> ultimo = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(2);
+
+        //Act
+        var sustituida = dispatcher.publish("VIDEOJUEGOS-1", () -> { ultimo.set("primero"); latch.countDown(); });
+        dispatcher.publish("VIDEOJUEGOS-2", latch::countDown);
+        var ultima = dispatcher.publish("VIDEOJUEGOS-1", () -> { ultimo.set("segundo"); latch.countDown(); });
+        dispatcher.afterPropertiesSet();
+
+        //Assert
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        // La sustituida se da por entregada con el envío que la reemplazó
+        sustituida.get(1, TimeUnit.SECONDS);
+        ultima.get(1, TimeUnit.SECONDS);
+        assertAll("coalesce",
+                () -> assertEquals("segundo", ultimo.get()),
+                () -> assertEquals(0, dispatcher.getDroppedCount()),
+                () -> assertEquals(1, dispatcher.getCoalescedCount())
+        );
+        dispatcher.destroy();
+    }
+
+    @Test
+    void publish_ShouldDropBlockedNotification_WhenDispatcherStops() throws Exception {
+        //Arrange (sin hilos: la cola llena no se vacía y el segundo publish se queda esperando)
+        NotificationDispatcherImpl dispatcher = new NotificationDispatcherImpl(1, NotificationDispatcher.OverflowPolicy.BLOCK, 1);
+        dispatcher.publish("VIDEOJUEGOS-1", () -> {});
+        Thread bloqueado = Thread.ofVirtual().start(() -> dispatcher.publish("VIDEOJUEGOS-2", () -> {}));
+        while (bloqueado.getState() != Thread.State.WAITING) {
+            Thread.sleep(5);
+        }
+
+        //Act
+        dispatcher.destroy();
+        bloqueado.join(TimeUnit.SECONDS.toMillis(1));
+
+        //Assert
+        assertAll("block",
+                () -> assertFalse(bloqueado.isAlive()),
+                () -> assertEquals(1, dispatcher.getQueueDepth()),
+                () -> assertEquals(1, dispatcher.getDroppedCount())
+        );
+    }
+}
@@ -0,0 +1,116 @@
+package es.juanjsts.websockets.notifications.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.juanjsts.websockets.notifications.models.Notificacion;
+import es.juanjsts.websockets.notifications.models.NotificationOutboxEvent;
+import es.juanjsts.websockets.notifications.models.NotificationTopic;
+import es.juanjsts.websockets.notifications.repositories.NotificationOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationOutboxRelayTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private NotificationOutboxRepository outboxRepository;
+
+    @Mock
+    private NotificationBroadcaster notificationBroadcaster;
+
+    private NotificationOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new NotificationOutboxRelay(outboxRepository, notificationBroadcaster, objectMapper, 60_000, 2, 100);
+    }
+
+    @Test
+    void relayBatch_ShouldBroadcastBeforeDeleting() throws Exception {
+        //Arrange
+        var event = evento(1L, "VIDEOJUEGOS-1");
+        when(outboxRepository.findAllByOrderByIdAsc(any())).thenReturn(List.of(event));
+        when(notificationBroadcaster.broadcast(any(), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        //Act
+        int enviados = relay.relayBatch();
+
+        //Assert
+        assertEquals(1, enviados);
+        InOrder inOrder = inOrder(notificationBroadcaster, outboxRepository);
+        inOrder.verify(notificationBroadcaster).broadcast(eq("VIDEOJUEGOS-1"), any(), eq(NotificationTopic.of(1L, "Nintendo", "Party")));
+        inOrder.verify(outboxRepository).deleteAllByIdInBatch(List.of(1L));
+    }
+
+    @Test
+    void drain_ShouldKeepReading_WhileBatchesAreFull() throws Exception {
+        //Arrange
+        when(outboxRepository.findAllByOrderByIdAsc(any()))
+                .thenReturn(List.of(evento(1L, "VIDEOJUEGOS-1"), evento(2L, "VIDEOJUEGOS-2")))
+                .thenReturn(List.of(evento(3L, "VIDEOJUEGOS-3")));
+        when(notificationBroadcaster.broadcast(any(), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        //Act
+        relay.drain();
+
+        //Assert
+        verify(notificationBroadcaster, times(3)).broadcast(any(), any(), any());
+        verify(outboxRepository, times(2)).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    void relayBatch_ShouldKeepRows_WhenNotDelivered() throws Exception {
+        //Arrange
+        when(outboxRepository.findAllByOrderByIdAsc(any()))
+                .thenReturn(List.of(evento(1L, "VIDEOJUEGOS-1"), evento(2L, "VIDEOJUEGOS-2")));
+        when(notificationBroadcaster.broadcast(eq("VIDEOJUEGOS-1"), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RejectedExecutionException("Cola de notificaciones llena")));
+        when(notificationBroadcaster.broadcast(eq("VIDEOJUEGOS-2"), any(), any())).thenReturn(new CompletableFuture<>());
+
+        //Act
+        relay.drain();
+
+        //Assert
+        verify(outboxRepository, times(1)).findAllByOrderByIdAsc(any());
+        verify(outboxRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    void relayBatch_ShouldDeleteOnlyDeliveredRows() throws Exception {
+        //Arrange
+        when(outboxRepository.findAllByOrderByIdAsc(any()))
+                .thenReturn(List.of(evento(1L, "VIDEOJUEGOS-1"), evento(2L, "VIDEOJUEGOS-2")));
+        when(notificationBroadcaster.broadcast(eq("VIDEOJUEGOS-1"), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RejectedExecutionException("Cola de notificaciones llena")));
+        when(notificationBroadcaster.broadcast(eq("VIDEOJUEGOS-2"), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        //Act
+        int entregados = relay.relayBatch();
+
+        //Assert
+        assertEquals(1, entregados);
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(2L));
+    }
+
+    private NotificationOutboxEvent evento(Long id, String key) throws Exception {
+        return NotificationOutboxEvent.builder()
+                .id(id)
+                .key(key)
+                .notificacion(objectMapper.writeValueAsString(new Notificacion<>("VIDEOJUEGOS", Notificacion.Tipo.CREATE, "datos", "2025-01-01T00:00")))
+                .topic(objectMapper.writeValueAsString(NotificationTopic.of(1L, "Nintendo", "Party")))
+                .build();
+    }
+}
@@ -0,0 +1,58 @@
+package es.juanjsts.websockets.notifications.services;
+
+import es.juanjsts.websockets.notifications.models.NotificationTopic;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationReplayBufferTest {
+    private final NotificationTopic topic = NotificationTopic.of(1L, "Nintendo", "Party");
+
+    private NotificationReplayBuffer buffer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        buffer = new NotificationReplayBuffer(3);
+        for (int i = 0; i < 5; i++) {
+            buffer.append(seq -> "frame-" + seq, topic);
+        }
+    }
+
+    @Test
+    void since_ShouldReturnMissedEntries_WhenGapFitsInBuffer() {
+        //Act
+        var replay = buffer.since(3);
+
+        //Assert
+        assertAll("replay",
+                () -> assertFalse(replay.resyncRequired()),
+                () -> assertEquals(5, replay.lastSeq()),
+                () -> assertEquals(List.of("frame-4", "frame-5"),
+                        replay.entries().stream().map(NotificationReplayBuffer.Entry::json).toList())
+        );
+    }
+
+    @Test
+    void since_ShouldReturnEmpty_WhenClientIsUpToDate() {
+        var replay = buffer.since(5);
+
+        assertAll("replay",
+                () -> assertFalse(replay.resyncRequired()),
+                () -> assertTrue(replay.entries().isEmpty())
+        );
+    }
+
+    @Test
+    void since_ShouldRequireResync_WhenGapIsTooLarge() {
+        assertTrue(buffer.since(1).resyncRequired());
+    }
+
+    @Test
+    void since_ShouldRequireResync_WhenSeqIsFromAnotherRun() {
+        assertTrue(buffer.since(50).resyncRequired());
+    }
+}